@@ -0,0 +1,46 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD rows for the Euclidean types; gives the same doubles as the scalar kernel. Other types use the scalar loop.
+class VectorDistanceRowKernel extends DistanceRowKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double TWO_52 = 0x1p52;
+
+    @Override
+    void row(double[] xs, double[] ys, int i, int from, EdgeWeightType type, double[] out) {
+        if (type != EdgeWeightType.EUCLIDEAN && type != EdgeWeightType.EUC_2D) {
+            super.row(xs, ys, i, from, type, out);
+            return;
+        }
+        boolean round = type == EdgeWeightType.EUC_2D;
+        DoubleVector xi = DoubleVector.broadcast(SPECIES, xs[i]);
+        DoubleVector yi = DoubleVector.broadcast(SPECIES, ys[i]);
+        int n = xs.length;
+        int j = from;
+        for (int bound = from + SPECIES.loopBound(n - from); j < bound; j += SPECIES.length()) {
+            DoubleVector dx = DoubleVector.fromArray(SPECIES, xs, j).sub(xi);
+            DoubleVector dy = DoubleVector.fromArray(SPECIES, ys, j).sub(yi);
+            DoubleVector d = dx.mul(dx).add(dy.mul(dy)).lanewise(VectorOperators.SQRT);
+            if (round) d = floor(d.add(0.5));
+            d.intoArray(out, j);
+        }
+        for (; j < n; j++) {
+            out[j] = type.distance(xs, ys, i, j);
+        }
+    }
+
+    // Exact floor of non-negative values: adding and removing 2^52 rounds to the nearest integer, which is then
+    // stepped down where it overshot. Values from 2^52 up are already integers. JDK 17 has no lanewise floor and
+    // its D2L conversion is not intrinsified.
+    private static DoubleVector floor(DoubleVector y) {
+        DoubleVector r = y.add(TWO_52).sub(TWO_52);
+        r = r.sub(1.0, r.compare(VectorOperators.GT, y));
+        return r.blend(y, y.compare(VectorOperators.GE, TWO_52));
+    }
+
+    @Override
+    boolean isVectorized() {
+        return true;
+    }
+}
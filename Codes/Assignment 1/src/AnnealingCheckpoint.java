@@ -0,0 +1,98 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// The state of a TSPSolver annealing run between two iterations. The Random is kept in its serialized form, so
+// a resumed run draws exactly the numbers the interrupted one would have.
+class AnnealingCheckpoint {
+    private static final int MAGIC = 0x53413032; // "SA02"
+
+    // The method, instance and parameters the state belongs to, and the serialized Random the run started from;
+    // it is only resumed when they all match
+    final double[] settings;
+    final byte[] start;
+    // Written when the run returned; a finished run is not resumed
+    final boolean finished;
+    // Iterations already done
+    final int iteration;
+    final double temperature;
+    final int[] currentTour;
+    final double currentCost;
+    final int[] bestTour;
+    final double bestCost;
+    // Delta SA only: bestTour is stale and the current tour is the best
+    final boolean atBest;
+    final byte[] random;
+
+    // The arrays passed in must already be copies the solver no longer changes
+    AnnealingCheckpoint(double[] settings, byte[] start, boolean finished, int iteration, double temperature,
+                        int[] currentTour, double currentCost, int[] bestTour, double bestCost, boolean atBest,
+                        byte[] random) {
+        this.settings = settings;
+        this.start = start;
+        this.finished = finished;
+        this.iteration = iteration;
+        this.temperature = temperature;
+        this.currentTour = currentTour;
+        this.currentCost = currentCost;
+        this.bestTour = bestTour;
+        this.bestCost = bestCost;
+        this.atBest = atBest;
+        this.random = random;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(settings.length);
+        for (double setting : settings) out.writeDouble(setting);
+        out.writeInt(start.length);
+        out.write(start);
+        out.writeBoolean(finished);
+        out.writeInt(iteration);
+        out.writeDouble(temperature);
+        writeTour(out, currentTour);
+        out.writeDouble(currentCost);
+        writeTour(out, bestTour);
+        out.writeDouble(bestCost);
+        out.writeBoolean(atBest);
+        out.writeInt(random.length);
+        out.write(random);
+    }
+
+    static AnnealingCheckpoint readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not an annealing checkpoint");
+        double[] settings = new double[in.readInt()];
+        for (int i = 0; i < settings.length; i++) settings[i] = in.readDouble();
+        byte[] start = new byte[in.readInt()];
+        in.readFully(start);
+        boolean finished = in.readBoolean();
+        int iteration = in.readInt();
+        double temperature = in.readDouble();
+        int[] currentTour = readTour(in);
+        double currentCost = in.readDouble();
+        int[] bestTour = readTour(in);
+        double bestCost = in.readDouble();
+        boolean atBest = in.readBoolean();
+        byte[] random = new byte[in.readInt()];
+        in.readFully(random);
+        return new AnnealingCheckpoint(settings, start, finished, iteration, temperature, currentTour, currentCost,
+            bestTour, bestCost, atBest, random);
+    }
+
+    // Converted in bulk; same big-endian layout as writeInt per city
+    private static void writeTour(DataOutputStream out, int[] tour) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(4 * tour.length);
+        bytes.asIntBuffer().put(tour);
+        out.writeInt(tour.length);
+        out.write(bytes.array());
+    }
+
+    private static int[] readTour(DataInputStream in) throws IOException {
+        int[] tour = new int[in.readInt()];
+        byte[] bytes = new byte[4 * tour.length];
+        in.readFully(bytes);
+        ByteBuffer.wrap(bytes).asIntBuffer().get(tour);
+        return tour;
+    }
+}
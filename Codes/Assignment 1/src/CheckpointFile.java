@@ -0,0 +1,114 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// A solver checkpoint on disk. save hands a snapshot to a background thread and returns at once; the solver
+// only pays for copying its state. Snapshots that arrive while one is being written replace each other, so
+// only the latest is written next. Every write goes to a temporary file that is then moved over the checkpoint,
+// so the file always holds one complete snapshot.
+class CheckpointFile implements AutoCloseable {
+    // Writes a consistent copy of solver state; runs on the writer thread
+    interface Snapshot {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private final File file;
+    private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CheckpointFile(File file) {
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    // Null when there is no checkpoint yet
+    public DataInputStream open() throws IOException {
+        if (!file.isFile()) return null;
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    }
+
+    public void save(Snapshot snapshot) {
+        if (pending.getAndSet(snapshot) == null) writer.execute(this::writePending);
+    }
+
+    // Waits until the last snapshot handed to save is on disk; save may not be called afterwards
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // A failed write is reported and skipped; the previous checkpoint stays in place and the search goes on
+    private void writePending() {
+        Snapshot snapshot = pending.getAndSet(null);
+        if (snapshot == null) return;
+        File directory = file.getAbsoluteFile().getParentFile();
+        File temporary = null;
+        try {
+            Files.createDirectories(directory.toPath());
+            temporary = File.createTempFile(file.getName(), ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                snapshot.writeTo(out);
+            }
+            try {
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write checkpoint " + file + ": " + e.getMessage());
+        } finally {
+            if (temporary != null) temporary.delete();
+        }
+    }
+
+    // java.util.Random keeps its state private, but its serialized form holds all of it
+    public static byte[] randomState(Random random) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(random);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot checkpoint " + random.getClass().getName(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Random restoreRandom(byte[] state) throws IOException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(state))) {
+            // Nothing but the generator itself is ever deserialized from a checkpoint
+            in.setObjectInputFilter(ObjectInputFilter.Config.createFilter("java.util.Random;!*"));
+            return (Random) in.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Checkpoint holds no random generator", e);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+class DenseDistanceMatrix implements DistanceOracle {
+    private final double[][] matrix;
+
+    public DenseDistanceMatrix(double[] xs, double[] ys, EdgeWeightType type) {
+        int n = xs.length;
+        matrix = new double[n][n];
+
+        // Whole rows instead of mirroring the upper triangle keeps every write sequential; the TSPLIB metrics give
+        // bit-identical d(i, j) and d(j, i), so the matrix is still exactly symmetric.
+        DistanceRowKernel kernel = DistanceRowKernel.INSTANCE;
+        for (int i = 0; i < n; i++) {
+            kernel.row(xs, ys, i, 0, type, matrix[i]);
+            matrix[i][i] = 0;
+        }
+    }
+
+    public DenseDistanceMatrix(double[][] matrix) {
+        this.matrix = matrix;
+    }
+
+    @Override
+    public double distance(int i, int j) {
+        return matrix[i][j];
+    }
+
+    public double[][] getMatrix() {
+        return matrix;
+    }
+}
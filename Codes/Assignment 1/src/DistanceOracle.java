@@ -0,0 +1,4 @@
+// Distance between two cities by 0-based index. Implementations must be safe to read from several threads.
+interface DistanceOracle {
+    double distance(int i, int j);
+}
@@ -0,0 +1,27 @@
+// Fills one row of a coordinate-based distance matrix. This is the scalar version; when the JDK's incubator
+// Vector API is available, INSTANCE is the SIMD subclass from src-vector instead (see ReadMe).
+class DistanceRowKernel {
+    static final DistanceRowKernel INSTANCE = load();
+
+    // out[j] = type.distance(i, j) for j in [from, xs.length)
+    void row(double[] xs, double[] ys, int i, int from, EdgeWeightType type, double[] out) {
+        for (int j = from; j < xs.length; j++) {
+            out[j] = type.distance(xs, ys, i, j);
+        }
+    }
+
+    boolean isVectorized() {
+        return false;
+    }
+
+    // The vector class is only compiled with --add-modules jdk.incubator.vector and only links when the module
+    // is present at run time too; anything else leaves the scalar kernel in place.
+    private static DistanceRowKernel load() {
+        if (Boolean.getBoolean("kernels.scalar")) return new DistanceRowKernel();
+        try {
+            return (DistanceRowKernel) Class.forName("VectorDistanceRowKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new DistanceRowKernel();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+// TSPLIB EDGE_WEIGHT_TYPE distance functions over packed coordinates, following the TSPLIB 95 definitions.
+enum EdgeWeightType {
+    // Not a TSPLIB type: unrounded Euclidean distance, used when a file has no EDGE_WEIGHT_TYPE
+    EUCLIDEAN {
+        @Override
+        double distance(double[] xs, double[] ys, int i, int j) {
+            double dx = xs[i] - xs[j];
+            double dy = ys[i] - ys[j];
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+    },
+    EUC_2D {
+        @Override
+        double distance(double[] xs, double[] ys, int i, int j) {
+            return nint(EUCLIDEAN.distance(xs, ys, i, j));
+        }
+    },
+    CEIL_2D {
+        @Override
+        double distance(double[] xs, double[] ys, int i, int j) {
+            return Math.ceil(EUCLIDEAN.distance(xs, ys, i, j));
+        }
+    },
+    MAN_2D {
+        @Override
+        double distance(double[] xs, double[] ys, int i, int j) {
+            return nint(Math.abs(xs[i] - xs[j]) + Math.abs(ys[i] - ys[j]));
+        }
+    },
+    MAX_2D {
+        @Override
+        double distance(double[] xs, double[] ys, int i, int j) {
+            return Math.max(nint(Math.abs(xs[i] - xs[j])), nint(Math.abs(ys[i] - ys[j])));
+        }
+    },
+    // Pseudo-Euclidean distance of the att48/att532 instances
+    ATT {
+        @Override
+        double distance(double[] xs, double[] ys, int i, int j) {
+            double dx = xs[i] - xs[j];
+            double dy = ys[i] - ys[j];
+            double r = Math.sqrt((dx * dx + dy * dy) / 10.0);
+            double t = nint(r);
+            return t < r ? t + 1 : t;
+        }
+    },
+    // Coordinates are DDD.MM latitude (x) and longitude (y); distances are whole kilometres on the TSPLIB sphere
+    GEO {
+        @Override
+        double distance(double[] xs, double[] ys, int i, int j) {
+            double latI = geoRadians(xs[i]), lonI = geoRadians(ys[i]);
+            double latJ = geoRadians(xs[j]), lonJ = geoRadians(ys[j]);
+            double q1 = Math.cos(lonI - lonJ);
+            double q2 = Math.cos(latI - latJ);
+            double q3 = Math.cos(latI + latJ);
+            return (int) (GEO_RADIUS * Math.acos(0.5 * ((1.0 + q1) * q2 - (1.0 - q1) * q3)) + 1.0);
+        }
+    },
+    // Weights come from EDGE_WEIGHT_SECTION, there is nothing to compute
+    EXPLICIT {
+        @Override
+        double distance(double[] xs, double[] ys, int i, int j) {
+            throw new UnsupportedOperationException("EXPLICIT distances are read from the file");
+        }
+    };
+
+    private static final double GEO_PI = 3.141592;
+    private static final double GEO_RADIUS = 6378.388;
+
+    abstract double distance(double[] xs, double[] ys, int i, int j);
+
+    // Whether nearest neighbors under this metric can be found from the planar coordinates
+    boolean isPlanar() {
+        return this != GEO && this != EXPLICIT;
+    }
+
+    private static double nint(double x) {
+        return Math.floor(x + 0.5);
+    }
+
+    private static double geoRadians(double coordinate) {
+        int degrees = (int) coordinate;
+        double minutes = coordinate - degrees;
+        return GEO_PI * (degrees + 5.0 * minutes / 3.0) / 180.0;
+    }
+}
@@ -0,0 +1,173 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Parses each TSPLIB file once and hands the same TSPInstance to every caller; instances never change after
+// construction apart from their synchronized neighbor lists, so they can be shared between threads. Entries are
+// keyed by canonical path and replaced when the file's size or modification time changes.
+// With a directory, the parsed data is also stored there in a binary file that is memory-mapped on a later cold
+// start instead of parsing the text again.
+class InstanceCache {
+    private static final int MAGIC = 0x54535031; // "TSP1"
+    private static final InstanceCache SHARED = new InstanceCache(directoryProperty());
+
+    private final File directory;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // One parsed version of a file; the first caller loads it while later callers for the same version wait
+    private static class Entry {
+        final long size;
+        final long modified;
+        private TSPInstance instance;
+
+        Entry(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        synchronized TSPInstance get(InstanceCache cache, File file) throws IOException {
+            if (instance == null) instance = cache.load(file, size, modified);
+            return instance;
+        }
+    }
+
+    // directory may be null to keep instances in memory only
+    public InstanceCache(File directory) {
+        this.directory = directory;
+    }
+
+    // The process-wide cache, with the directory given by -Dinstance.cache if any
+    public static InstanceCache shared() {
+        return SHARED;
+    }
+
+    private static File directoryProperty() {
+        String path = System.getProperty("instance.cache");
+        return path == null || path.isEmpty() ? null : new File(path);
+    }
+
+    public TSPInstance get(String filename) throws IOException {
+        File file = new File(filename).getCanonicalFile();
+        if (!file.isFile()) throw new FileNotFoundException(filename);
+        long size = file.length();
+        long modified = file.lastModified();
+
+        Entry entry = entries.compute(file.getPath(), (path, old) ->
+            old != null && old.size == size && old.modified == modified ? old : new Entry(size, modified));
+        return entry.get(this, file);
+    }
+
+    private TSPInstance load(File file, long size, long modified) throws IOException {
+        if (directory == null) return new TSPInstance(file.getPath());
+
+        File binary = new File(directory, file.getName() + "-" + Integer.toHexString(file.getPath().hashCode()) + ".bin");
+        TSPInstance cached = readBinary(binary, size, modified);
+        if (cached != null) return cached;
+
+        TSPLibFile parsed = new TSPLibFile(file.getPath());
+        try {
+            writeBinary(binary, parsed, size, modified);
+        } catch (IOException e) {
+            System.err.println("Could not cache " + file + ": " + e.getMessage());
+        }
+        return new TSPInstance(parsed, TSPInstance.DEFAULT_DENSE_LIMIT, 0);
+    }
+
+    // ===================================================== Binary format =====================================================
+    // Little-endian: magic, source size and modification time, name, edge weight type, city count, coordinate
+    // count, x and y coordinates, then a flag and the full weight matrix for EXPLICIT instances.
+
+    // Null when the file is missing, was written for another version of the source, or is truncated
+    private static TSPInstance readBinary(File binary, long size, long modified) throws IOException {
+        if (!binary.isFile()) return null;
+        try (FileChannel channel = FileChannel.open(binary.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getLong() != size || buffer.getLong() != modified) return null;
+
+            String name = readString(buffer);
+            EdgeWeightType edgeWeightType = EdgeWeightType.valueOf(readString(buffer));
+            int cityCount = buffer.getInt();
+            double[] xs = readDoubles(buffer, buffer.getInt());
+            double[] ys = readDoubles(buffer, xs.length);
+            double[][] weights = null;
+            if (buffer.get() != 0) {
+                weights = new double[cityCount][];
+                for (int i = 0; i < cityCount; i++) {
+                    weights[i] = readDoubles(buffer, cityCount);
+                }
+            }
+            return new TSPInstance(name, edgeWeightType, cityCount, xs, ys, weights, TSPInstance.DEFAULT_DENSE_LIMIT, 0);
+        } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+            return null;
+        }
+    }
+
+    // Written to a temporary file first, so readers never see a partial file
+    private static void writeBinary(File binary, TSPLibFile parsed, long size, long modified) throws IOException {
+        Files.createDirectories(binary.getParentFile().toPath());
+        File temporary = File.createTempFile(binary.getName(), ".tmp", binary.getParentFile());
+        try {
+            try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE)) {
+                byte[] name = parsed.getName().getBytes(StandardCharsets.UTF_8);
+                byte[] type = parsed.getEdgeWeightType().name().getBytes(StandardCharsets.UTF_8);
+                ByteBuffer header = ByteBuffer.allocate(36 + name.length + type.length).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putLong(size).putLong(modified);
+                header.putInt(name.length).put(name).putInt(type.length).put(type);
+                header.putInt(parsed.getCityCount()).putInt(parsed.getXs().length);
+                header.flip();
+                writeFully(channel, header);
+
+                writeDoubles(channel, parsed.getXs());
+                writeDoubles(channel, parsed.getYs());
+                double[][] weights = parsed.getWeights();
+                writeFully(channel, ByteBuffer.wrap(new byte[]{(byte) (weights != null ? 1 : 0)}));
+                if (weights != null) {
+                    for (double[] row : weights) {
+                        writeDoubles(channel, row);
+                    }
+                }
+            }
+            try {
+                Files.move(temporary.toPath(), binary.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temporary.toPath(), binary.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + 8 * count);
+        return values;
+    }
+
+    private static void writeDoubles(FileChannel channel, double[] values) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(8 * values.length).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asDoubleBuffer().put(values);
+        writeFully(channel, bytes);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) channel.write(bytes);
+    }
+}
@@ -0,0 +1,58 @@
+// Computes distances on demand from packed coordinates. An optional direct-mapped row cache keeps full rows
+// for cities that keep missing their slot, so hot cities are served from memory without an n x n matrix.
+class LazyDistanceOracle implements DistanceOracle {
+    private static final int ROW_ADMIT_MISSES = 8;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final EdgeWeightType type;
+    private final Row[] rows;
+    private final int[] missCity;
+    private final int[] missCount;
+
+    // Rows are immutable once published, so readers racing a replacement see either the old or the new row.
+    private static class Row {
+        final int city;
+        final double[] distances;
+
+        Row(int city, double[] distances) {
+            this.city = city;
+            this.distances = distances;
+        }
+    }
+
+    public LazyDistanceOracle(double[] xs, double[] ys, EdgeWeightType type, int rowCacheSize) {
+        this.xs = xs;
+        this.ys = ys;
+        this.type = type;
+        this.rows = rowCacheSize > 0 ? new Row[rowCacheSize] : null;
+        this.missCity = rowCacheSize > 0 ? new int[rowCacheSize] : null;
+        this.missCount = rowCacheSize > 0 ? new int[rowCacheSize] : null;
+    }
+
+    @Override
+    public double distance(int i, int j) {
+        if (rows == null) return type.distance(xs, ys, i, j);
+
+        int slot = i % rows.length;
+        Row row = rows[slot];
+        if (row != null && row.city == i) return row.distances[j];
+
+        // Miss counters are racy on purpose: a lost update only delays admitting a row.
+        if (missCity[slot] != i) {
+            missCity[slot] = i;
+            missCount[slot] = 0;
+        }
+        if (++missCount[slot] >= ROW_ADMIT_MISSES) {
+            rows[slot] = new Row(i, computeRow(i));
+            missCount[slot] = 0;
+        }
+        return type.distance(xs, ys, i, j);
+    }
+
+    private double[] computeRow(int i) {
+        double[] row = new double[xs.length];
+        DistanceRowKernel.INSTANCE.row(xs, ys, i, 0, type, row);
+        return row;
+    }
+}
@@ -1,7 +1,8 @@
 import java.io.IOException;
-import java.util.List;
 
 public class Main {
+    private static final int RUNS = 10;
+
     public static void main(String[] args) throws IOException {
         String dataFolder ="Data/";
         String[] problemFiles = {
@@ -12,71 +13,53 @@ public class Main {
             dataFolder + "25.txt"
         };
 
-        System.out.printf("%-18s %-10s %-15s %-10s %-50s %-12s\n", 
-                          "Problem Instance", "Algorithm", "Seed Value", "Cost", "Best Solution", "Runtime (ms)");
+        System.out.printf("%-18s %-10s %-20s %-10s %-10s %-10s %-50s %-12s %-12s\n",
+                          "Problem Instance", "Algorithm", "Seed Value", "Best Cost", "Mean Cost", "Std Dev",
+                          "Best Solution", "Runtime (ms)", "Mean (ms)");
 
-        for (String file : problemFiles) {
-            runExperiments(file);
+        MultiStartRunner runner = new MultiStartRunner(Runtime.getRuntime().availableProcessors());
+        try {
+            for (String file : problemFiles) {
+                runExperiments(runner, file);
+            }
+        } finally {
+            runner.shutdown();
         }
     }
 
-    static void runExperiments(String file) {
+    static void runExperiments(MultiStartRunner runner, String file) {
         try {
-            long seed = System.currentTimeMillis(); 
-            TSPInstance tsp = new TSPInstance(file);
+            long seed = System.currentTimeMillis();
+            TSPInstance tsp = InstanceCache.shared().get(file);
 
             // tsp.printCities();
             // tsp.printDistanceMatrix();
-            
-            double bestCostSA = Double.MAX_VALUE;
-            List<Integer> bestTourSA = null;
-            long bestRuntimeSA = 0;
-    
-            double bestCostTS = Double.MAX_VALUE;
-            List<Integer> bestTourTS = null;
-            long bestRuntimeTS = 0;
-    
-            for (int run = 0; run < 10; run++) {
-                TSPSolver solverSA = new TSPSolver(tsp, seed);
-                // + run
-                double initialTemp = 1000;
-                double coolingRate = 0.99;
-                int maxIterationsSA = 10000;
-    
-                long startTime = System.currentTimeMillis();
-                List<Integer> tourSA = solverSA.simulatedAnnealing(initialTemp, coolingRate, maxIterationsSA);
-                long runtimeSA = System.currentTimeMillis() - startTime;
-                double costSA = TSPInitialSolution.calculateTourCost(tourSA, tsp);
-    
-                if (costSA < bestCostSA) { 
-                    bestCostSA = costSA;
-                    bestTourSA = tourSA;
-                    bestRuntimeSA = runtimeSA;
-                }
-    
-                TSPSolver solverTS = new TSPSolver(tsp, seed);
-                // + run 
-                int maxIterationsTS = 500;
-                int tabuTenure = 10;
-    
-                startTime = System.currentTimeMillis();
-                List<Integer> tourTS = solverTS.tabuSearch(maxIterationsTS, tabuTenure);
-                long runtimeTS = System.currentTimeMillis() - startTime;
-                double costTS = TSPInitialSolution.calculateTourCost(tourTS, tsp);
-    
-                if (costTS < bestCostTS) {
-                    bestCostTS = costTS;
-                    bestTourTS = tourTS;
-                    bestRuntimeTS = runtimeTS;
-                }
-            }
 
-            System.out.printf("%-18s %-10s %-15d %-10.2f %-50s %-12d\n", 
-                              file.replace(".txt", " Cities"), "SA", seed, bestCostSA, bestTourSA, bestRuntimeSA);
-            System.out.printf("%-18s %-10s %-15d %-10.2f %-50s %-12d\n", 
-                              file.replace(".txt", " Cities"), "Tabu", seed, bestCostTS, bestTourTS, bestRuntimeTS);
+            // SA and tabu share the per-run seeds, so run k of both starts from the same initial tour
+            long[] runSeeds = MultiStartRunner.runSeeds(seed, RUNS);
+
+            double initialTemp = 1000;
+            double coolingRate = 0.99;
+            int maxIterationsSA = 10000;
+            MultiStartRunner.Summary sa = runner.run("SA", tsp, runSeeds,
+                solver -> solver.simulatedAnnealingDelta(initialTemp, coolingRate, maxIterationsSA));
+
+            int maxIterationsTS = 500;
+            int tabuTenure = 10;
+            MultiStartRunner.Summary tabu = runner.run("Tabu", tsp, runSeeds,
+                solver -> solver.tabuSearchDelta(maxIterationsTS, tabuTenure));
+
+            printSummary(file, sa);
+            printSummary(file, tabu);
         } catch (IOException e) {
             System.err.println("Error reading file: " + e.getMessage());
         }
-    }       
+    }
+
+    private static void printSummary(String file, MultiStartRunner.Summary summary) {
+        System.out.printf("%-18s %-10s %-20d %-10.2f %-10.2f %-10.2f %-50s %-12.3f %-12.3f\n",
+                          file.replace(".txt", " Cities"), summary.algorithm, summary.bestSeed, summary.bestCost,
+                          summary.meanCost, summary.stdDevCost, summary.bestTour, summary.bestRuntimeMs,
+                          summary.meanRuntimeMs);
+    }
 }
@@ -0,0 +1,122 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Runs independent repetitions of an algorithm concurrently. Every run gets its own seed split from the
+// experiment seed, so the batch is reproducible no matter how the runs are scheduled.
+class MultiStartRunner {
+    interface Algorithm {
+        List<Integer> run(TSPSolver solver);
+    }
+
+    static class Summary {
+        final String algorithm;
+        final int runs;
+        final List<Integer> bestTour;
+        final long bestSeed;
+        final double bestCost;
+        final double bestRuntimeMs;
+        final double meanCost;
+        final double stdDevCost;
+        final double meanRuntimeMs;
+
+        Summary(String algorithm, int runs, List<Integer> bestTour, long bestSeed, double bestCost, double bestRuntimeMs,
+                double meanCost, double stdDevCost, double meanRuntimeMs) {
+            this.algorithm = algorithm;
+            this.runs = runs;
+            this.bestTour = bestTour;
+            this.bestSeed = bestSeed;
+            this.bestCost = bestCost;
+            this.bestRuntimeMs = bestRuntimeMs;
+            this.meanCost = meanCost;
+            this.stdDevCost = stdDevCost;
+            this.meanRuntimeMs = meanRuntimeMs;
+        }
+    }
+
+    private static class RunResult {
+        final long seed;
+        final List<Integer> tour;
+        final double cost;
+        final long runtimeNanos;
+
+        RunResult(long seed, List<Integer> tour, double cost, long runtimeNanos) {
+            this.seed = seed;
+            this.tour = tour;
+            this.cost = cost;
+            this.runtimeNanos = runtimeNanos;
+        }
+    }
+
+    private final ExecutorService executor;
+
+    public MultiStartRunner(int threads) {
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    public static long[] runSeeds(long seed, int runs) {
+        SplittableRandom root = new SplittableRandom(seed);
+        long[] seeds = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            seeds[run] = root.split().nextLong();
+        }
+        return seeds;
+    }
+
+    public Summary run(String name, TSPInstance tsp, long[] seeds, Algorithm algorithm) {
+        List<Future<RunResult>> futures = new ArrayList<>();
+        for (long runSeed : seeds) {
+            futures.add(executor.submit(() -> {
+                TSPSolver solver = new TSPSolver(tsp, runSeed);
+                long start = System.nanoTime();
+                List<Integer> tour = algorithm.run(solver);
+                long runtime = System.nanoTime() - start;
+                return new RunResult(runSeed, tour, TSPInitialSolution.calculateTourCost(tour, tsp), runtime);
+            }));
+        }
+
+        List<RunResult> results = new ArrayList<>();
+        try {
+            for (Future<RunResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + name + " runs", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(name + " run failed", e.getCause());
+        }
+        return summarize(name, results);
+    }
+
+    // Futures are read in submission order, so ties on cost keep the earliest run.
+    private static Summary summarize(String name, List<RunResult> results) {
+        RunResult best = null;
+        double costSum = 0;
+        double runtimeSum = 0;
+        for (RunResult result : results) {
+            if (best == null || result.cost < best.cost) best = result;
+            costSum += result.cost;
+            runtimeSum += result.runtimeNanos / 1_000_000.0;
+        }
+
+        int runs = results.size();
+        double mean = costSum / runs;
+        double squares = 0;
+        for (RunResult result : results) {
+            squares += (result.cost - mean) * (result.cost - mean);
+        }
+        double stdDev = runs > 1 ? Math.sqrt(squares / (runs - 1)) : 0;
+
+        return new Summary(name, runs, best.tour, best.seed, best.cost, best.runtimeNanos / 1_000_000.0,
+            mean, stdDev, runtimeSum / runs);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
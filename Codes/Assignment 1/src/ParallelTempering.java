@@ -0,0 +1,181 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Replica-exchange annealing: one delta-evaluated Metropolis chain per temperature, each on its own thread.
+// Exchanges are asynchronous. Each chain publishes a snapshot at the end of every sweep; the lower chain of
+// a pair claims both snapshots with CAS, applies the Metropolis swap test and hands its own snapshot to the
+// upper chain's inbox. No chain ever waits for another, and a snapshot is used by at most one exchange.
+// A claimed upper snapshot is marked CLAIMED until the upper chain has taken its inbox, and the upper chain
+// publishes nothing new meanwhile, so the state it gave away never lives on in two chains.
+class ParallelTempering {
+    private static final Snapshot CLAIMED = new Snapshot(new int[0], Double.NaN);
+
+    private final TSPInstance tsp;
+    private final double[] temperatures;
+    private final long[] seeds;
+    private final AtomicReferenceArray<Snapshot> published;
+    private final AtomicReferenceArray<Snapshot> inbox;
+
+    private static class Snapshot {
+        final int[] tour;
+        final double cost;
+
+        Snapshot(int[] tour, double cost) {
+            this.tour = tour;
+            this.cost = cost;
+        }
+    }
+
+    public ParallelTempering(TSPInstance tsp, long seed, int replicas, double minTemp, double maxTemp) {
+        this.tsp = tsp;
+        this.temperatures = new double[replicas];
+        this.seeds = new long[replicas];
+        this.published = new AtomicReferenceArray<>(replicas);
+        this.inbox = new AtomicReferenceArray<>(replicas);
+
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int r = 0; r < replicas; r++) {
+            // Geometric ladder from the coldest replica (0) to the hottest
+            double fraction = replicas == 1 ? 0 : (double) r / (replicas - 1);
+            temperatures[r] = minTemp * Math.pow(maxTemp / minTemp, fraction);
+            seeds[r] = root.split().nextLong();
+        }
+    }
+
+    public List<Integer> run(int sweeps, int movesPerSweep) {
+        int replicas = temperatures.length;
+        ExecutorService executor = Executors.newFixedThreadPool(replicas);
+        try {
+            List<Callable<Snapshot>> chains = new ArrayList<>();
+            for (int r = 0; r < replicas; r++) {
+                int replica = r;
+                chains.add(() -> new Replica(replica).run(sweeps, movesPerSweep));
+            }
+
+            Snapshot best = null;
+            for (Future<Snapshot> future : executor.invokeAll(chains)) {
+                Snapshot result = future.get();
+                if (best == null || result.cost < best.cost) best = result;
+            }
+            return TSPMoves.toList(best.tour);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for replicas", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Replica failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private class Replica {
+        private final int index;
+        private final double temperature;
+        private final Random rand;
+        private int[] currentTour;
+        private int[] bestTour;
+        private double currentCost;
+        private double bestCost;
+        private boolean atBest;
+
+        Replica(int index) {
+            this.index = index;
+            this.temperature = temperatures[index];
+            this.rand = new Random(seeds[index]);
+        }
+
+        Snapshot run(int sweeps, int movesPerSweep) {
+            currentTour = TSPMoves.toArray(TSPInitialSolution.generateRandomTour(tsp.getCityCount(), rand));
+            bestTour = currentTour.clone();
+            currentCost = TSPMoves.tourCost(currentTour, tsp);
+            bestCost = currentCost;
+            atBest = true;
+
+            for (int sweep = 0; sweep < sweeps; sweep++) {
+                anneal(movesPerSweep);
+                exchange(sweep);
+            }
+            Snapshot received = inbox.getAndSet(index, null);
+            if (received != null) adopt(received);
+            return new Snapshot(atBest ? currentTour : bestTour, bestCost);
+        }
+
+        private void anneal(int moves) {
+            int size = currentTour.length - 2;
+            if (size < 2) return;
+
+            for (int m = 0; m < moves; m++) {
+                int i = rand.nextInt(size) + 1;
+                int j = rand.nextInt(size) + 1;
+                int move = rand.nextInt(3);
+                double delta = TSPMoves.delta(move, currentTour, i, j, tsp);
+
+                if (i != j && (delta < 0 || rand.nextDouble() < Math.exp(-delta / temperature))) {
+                    leaveBest(delta);
+                    TSPMoves.apply(move, currentTour, i, j);
+                    currentCost += delta;
+                    recordBest();
+                }
+            }
+        }
+
+        // Pairs (r, r + 1) alternate between even and odd r on successive sweeps.
+        private void exchange(int sweep) {
+            Snapshot received = inbox.getAndSet(index, null);
+            if (received != null) adopt(received);
+
+            // Claimed but not handed over yet: the inbox fills within moments, and is taken next sweep
+            Snapshot previous = published.get(index);
+            if (previous == CLAIMED && received == null) return;
+            Snapshot mine = new Snapshot(currentTour.clone(), currentCost);
+            if (!published.compareAndSet(index, previous, mine)) return;
+
+            int upper = index + 1;
+            if (index % 2 != sweep % 2 || upper >= temperatures.length) return;
+
+            Snapshot theirs = published.get(upper);
+            if (theirs == null || theirs == CLAIMED) return;
+            double exponent = (1 / temperature - 1 / temperatures[upper]) * (mine.cost - theirs.cost);
+            if (exponent < 0 && rand.nextDouble() >= Math.exp(exponent)) return;
+
+            if (!published.compareAndSet(upper, theirs, CLAIMED)) return;
+            if (!published.compareAndSet(index, mine, null)) {
+                published.compareAndSet(upper, CLAIMED, theirs);
+                return;
+            }
+            // Upper's inbox is empty: nothing else is handed to it while its snapshot is CLAIMED
+            inbox.set(upper, mine);
+            adopt(theirs);
+        }
+
+        private void adopt(Snapshot snapshot) {
+            leaveBest(snapshot.cost - currentCost);
+            System.arraycopy(snapshot.tour, 0, currentTour, 0, currentTour.length);
+            currentCost = snapshot.cost;
+            recordBest();
+        }
+
+        // The best tour is only copied out when the chain is about to leave it.
+        private void leaveBest(double delta) {
+            if (atBest && delta >= 0) {
+                System.arraycopy(currentTour, 0, bestTour, 0, currentTour.length);
+                atBest = false;
+            }
+        }
+
+        private void recordBest() {
+            if (currentCost < bestCost) {
+                bestCost = currentCost;
+                atBest = true;
+            }
+        }
+    }
+}
@@ -1,14 +1,19 @@
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 class TSPInitialSolution {
     public static List<Integer> generateRandomTour(int numCities) {
+        return generateRandomTour(numCities, new Random());
+    }
+
+    public static List<Integer> generateRandomTour(int numCities, Random rand) {
         List<Integer> tour = new ArrayList<>();
         for (int i = 2; i <= numCities; i++) { // Start from 2 since 1 is fixed as start/end
             tour.add(i);
         }
-        Collections.shuffle(tour);
+        Collections.shuffle(tour, rand);
         tour.add(0, 1); // Ensure Node 1 is the start
         tour.add(1); // Ensure Node 1 is the end
         return tour;
@@ -2,84 +2,151 @@ import java.io.*;
 import java.util.*;
 
 class TSPInstance {
-    private final List<int[]> cities = new ArrayList<>();
-    private double[][] distanceMatrix;
+    // Above this many cities the n x n matrix is not built and distances are computed on demand
+    static final int DEFAULT_DENSE_LIMIT = 5000;
+
+    private final String name;
+    private final EdgeWeightType edgeWeightType;
+    private final int cityCount;
+    private final double[] xs;
+    private final double[] ys;
+    private final DistanceOracle distances;
+    private SpatialGrid spatialGrid;
+    private int[][] neighborLists;
+    private int neighborListSize;
 
     public TSPInstance(String filename) throws IOException {
-        parseFile(filename);
-        computeDistanceMatrix();
+        this(filename, DEFAULT_DENSE_LIMIT, 0);
     }
 
-    private void parseFile(String filename) throws IOException {
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            boolean readingNodes = false;
-
-            while ((line = br.readLine()) != null) {
-                if (line.startsWith("NODE_COORD_SECTION")) {
-                    readingNodes = true;
-                    continue;
-                }
-                if (line.startsWith("EOF")) break;
-
-                if (readingNodes) addCity(line.trim().split("\\s+"));
-            }
-        }
+    public TSPInstance(String filename, int denseLimit, int rowCacheSize) throws IOException {
+        this(new TSPLibFile(filename), denseLimit, rowCacheSize);
     }
 
-    private void addCity(String[] parts) {
-        if (parts.length >= 3) {
-            cities.add(new int[]{
-                Integer.parseInt(parts[0]),
-                Integer.parseInt(parts[1]),
-                Integer.parseInt(parts[2])
-            });
-        }
+    TSPInstance(TSPLibFile file, int denseLimit, int rowCacheSize) {
+        this(file.getName(), file.getEdgeWeightType(), file.getCityCount(), file.getXs(), file.getYs(),
+            file.getWeights(), denseLimit, rowCacheSize);
     }
 
-    private void computeDistanceMatrix() {
-        int n = cities.size();
-        distanceMatrix = new double[n][n];
+    // From already parsed data, as read back by InstanceCache; weights is only used for EXPLICIT instances
+    TSPInstance(String name, EdgeWeightType edgeWeightType, int cityCount, double[] xs, double[] ys,
+                double[][] weights, int denseLimit, int rowCacheSize) {
+        this.name = name;
+        this.edgeWeightType = edgeWeightType;
+        this.cityCount = cityCount;
+        this.xs = xs;
+        this.ys = ys;
 
-        for (int i = 0; i < n; i++) {
-            for (int j = i + 1; j < n; j++) {
-                double dist = calculateDistance(cities.get(i), cities.get(j));
-                distanceMatrix[i][j] = distanceMatrix[j][i] = dist;
-            }
+        if (edgeWeightType == EdgeWeightType.EXPLICIT) {
+            distances = new DenseDistanceMatrix(weights);
+        } else if (cityCount <= denseLimit) {
+            distances = new DenseDistanceMatrix(xs, ys, edgeWeightType);
+        } else {
+            distances = new LazyDistanceOracle(xs, ys, edgeWeightType, rowCacheSize);
         }
     }
 
     public double getDistance(int city1, int city2) {
-        return distanceMatrix[city1 - 1][city2 - 1];
+        return distances.distance(city1 - 1, city2 - 1);
     }
 
-    private double calculateDistance(int[] city1, int[] city2) {
-        int dx = city1[1] - city2[1];
-        int dy = city1[2] - city2[2];
-        return Math.sqrt(dx * dx + dy * dy);
+    public boolean hasDistanceMatrix() {
+        return distances instanceof DenseDistanceMatrix;
     }
 
     public double[][] getDistanceMatrix() {
-        return distanceMatrix;
+        if (!hasDistanceMatrix()) {
+            throw new IllegalStateException("No distance matrix for " + cityCount + " cities, use getDistance");
+        }
+        return ((DenseDistanceMatrix) distances).getMatrix();
     }
 
     public void printDistanceMatrix() {
         System.out.println("Distance Matrix:");
-        for (double[] row : distanceMatrix) {
-            for (double d : row) {
-                System.out.printf("%.2f ", d);
+        for (int i = 1; i <= cityCount; i++) {
+            for (int j = 1; j <= cityCount; j++) {
+                System.out.printf("%.2f ", getDistance(i, j));
             }
             System.out.println();
         }
     }
 
-    public List<int[]> getCities() {
+    // Per-city candidate lists of the k nearest cities, indexed by city id (row 0 is unused). Built once per k.
+    // Planar metrics use the spatial grid; GEO and EXPLICIT instances rank every row by getDistance.
+    public synchronized int[][] getNeighborLists(int k) {
+        if (neighborLists != null && neighborListSize == k) return neighborLists;
+
+        boolean planar = edgeWeightType.isPlanar() && xs.length == cityCount;
+        if (planar && spatialGrid == null) spatialGrid = new SpatialGrid(xs, ys);
+
+        int[][] lists = new int[cityCount + 1][];
+        lists[0] = new int[0];
+        for (int i = 0; i < cityCount; i++) {
+            int[] nearest = planar ? spatialGrid.nearest(i, k) : nearestByDistance(i, k);
+            for (int m = 0; m < nearest.length; m++) {
+                nearest[m]++;
+            }
+            lists[i + 1] = nearest;
+        }
+        neighborLists = lists;
+        neighborListSize = k;
+        return lists;
+    }
+
+    private int[] nearestByDistance(int index, int k) {
+        Integer[] others = new Integer[cityCount - 1];
+        for (int j = 0, m = 0; j < cityCount; j++) {
+            if (j != index) others[m++] = j;
+        }
+        Arrays.sort(others, Comparator.comparingDouble(j -> distances.distance(index, j)));
+
+        int[] nearest = new int[Math.min(k, others.length)];
+        for (int m = 0; m < nearest.length; m++) {
+            nearest[m] = others[m];
+        }
+        return nearest;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Hash of what defines the instance: weight type, coordinates and, for EXPLICIT instances, the distances.
+    // Checkpoints keep it to tell instances with the same city count apart.
+    public int contentHash() {
+        int hash = 31 * edgeWeightType.name().hashCode() + cityCount;
+        hash = 31 * hash + Arrays.hashCode(xs);
+        hash = 31 * hash + Arrays.hashCode(ys);
+        if (edgeWeightType == EdgeWeightType.EXPLICIT) {
+            for (int i = 0; i < cityCount; i++) {
+                for (int j = 0; j < cityCount; j++) {
+                    hash = 31 * hash + Double.hashCode(distances.distance(i, j));
+                }
+            }
+        }
+        return hash;
+    }
+
+    public EdgeWeightType getEdgeWeightType() {
+        return edgeWeightType;
+    }
+
+    public int getCityCount() {
+        return cityCount;
+    }
+
+    // {id, x, y} per city; empty for EXPLICIT instances without display coordinates
+    public List<double[]> getCities() {
+        List<double[]> cities = new ArrayList<>(xs.length);
+        for (int i = 0; i < xs.length; i++) {
+            cities.add(new double[]{i + 1, xs[i], ys[i]});
+        }
         return Collections.unmodifiableList(cities);
     }
 
     public void printCities() {
-        for (int[] city : cities) {
-            System.out.printf("City %d: (%d, %d)%n", city[0], city[1], city[2]);
+        for (int i = 0; i < xs.length; i++) {
+            System.out.printf("City %d: (%s, %s)%n", i + 1, xs[i], ys[i]);
         }
     }
 }
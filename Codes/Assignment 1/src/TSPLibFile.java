@@ -0,0 +1,299 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Streaming TSPLIB parser over a memory-mapped file. Only header keywords become Strings; the coordinate
+// and weight sections are parsed straight from the bytes.
+class TSPLibFile {
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final MappedByteBuffer buffer;
+    private final int limit;
+    private int p;
+
+    private String name = "";
+    private int dimension;
+    private EdgeWeightType edgeWeightType = EdgeWeightType.EUCLIDEAN;
+    private String edgeWeightFormat = "FULL_MATRIX";
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private int cityCount;
+    private double[][] weights;
+
+    public TSPLibFile(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(filename + " is larger than 2 GB");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        limit = buffer.limit();
+        parse(filename);
+    }
+
+    private void parse(String filename) throws IOException {
+        boolean haveCoordinates = false;
+        boolean end = false;
+        while (!end && skipWhitespace()) {
+            if (buffer.get(p) == '#') {
+                skipLine();
+                continue;
+            }
+            String keyword = readKeyword();
+            if (keyword.isEmpty()) throw new IOException(filename + ": unexpected '" + (char) buffer.get(p) + "' at byte " + p);
+
+            switch (keyword) {
+                case "EOF":
+                    end = true;
+                    break;
+                case "NODE_COORD_SECTION":
+                    readCoordinates();
+                    haveCoordinates = true;
+                    break;
+                case "DISPLAY_DATA_SECTION":
+                    // Only used for the spatial index when the file has no node coordinates
+                    if (haveCoordinates) skipSection(); else readCoordinates();
+                    break;
+                case "EDGE_WEIGHT_SECTION":
+                    readWeights(filename);
+                    break;
+                default:
+                    if (keyword.endsWith("_SECTION")) {
+                        skipSection();
+                    } else {
+                        readHeader(filename, keyword, readValue());
+                    }
+            }
+        }
+
+        // An instance without cities would only fail later, deep inside a solver
+        if (edgeWeightType == EdgeWeightType.EXPLICIT) {
+            if (weights == null) throw new IOException(filename + ": EXPLICIT instance without EDGE_WEIGHT_SECTION");
+        } else if (!haveCoordinates || cityCount == 0) {
+            throw new IOException(filename + ": " + edgeWeightType + " instance without NODE_COORD_SECTION");
+        }
+        if (dimension > 0 && getCityCount() != dimension) {
+            throw new IOException(filename + ": DIMENSION " + dimension + " but " + getCityCount() + " cities");
+        }
+        if (weights != null && xs.length > 0 && xs.length != weights.length) {
+            throw new IOException(filename + ": " + xs.length + " display coordinates for " + weights.length + " cities");
+        }
+    }
+
+    private void readHeader(String filename, String keyword, String value) throws IOException {
+        switch (keyword) {
+            case "NAME":
+                name = value;
+                break;
+            case "DIMENSION":
+                dimension = Integer.parseInt(value);
+                break;
+            case "EDGE_WEIGHT_TYPE":
+                try {
+                    edgeWeightType = EdgeWeightType.valueOf(value);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(filename + ": unsupported EDGE_WEIGHT_TYPE " + value);
+                }
+                break;
+            case "EDGE_WEIGHT_FORMAT":
+                edgeWeightFormat = value;
+                break;
+            default:
+                // TYPE, COMMENT, CAPACITY, NODE_COORD_TYPE and DISPLAY_DATA_TYPE do not affect distances
+        }
+    }
+
+    // ===================================================== Sections =====================================================
+
+    private void readCoordinates() {
+        cityCount = 0;
+        xs = new double[Math.max(dimension, 16)];
+        ys = new double[xs.length];
+
+        while (skipWhitespace() && isNumberStart(buffer.get(p))) {
+            readNumber(); // node id, cities are kept in file order
+            if (cityCount == xs.length) {
+                xs = Arrays.copyOf(xs, 2 * xs.length);
+                ys = Arrays.copyOf(ys, 2 * ys.length);
+            }
+            xs[cityCount] = readNumber();
+            ys[cityCount] = readNumber();
+            skipLine(); // ignores a z coordinate if present
+            cityCount++;
+        }
+        xs = Arrays.copyOf(xs, cityCount);
+        ys = Arrays.copyOf(ys, cityCount);
+    }
+
+    private void readWeights(String filename) throws IOException {
+        int n = dimension;
+        if (n <= 0) throw new IOException(filename + ": EDGE_WEIGHT_SECTION needs DIMENSION");
+        weights = new double[n][n];
+
+        // Column-wise formats of a symmetric matrix list the same numbers as the opposite row-wise format
+        switch (edgeWeightFormat) {
+            case "FULL_MATRIX":
+                for (int i = 0; i < n; i++)
+                    for (int j = 0; j < n; j++)
+                        weights[i][j] = readNumber();
+                break;
+            case "UPPER_ROW":
+            case "LOWER_COL":
+                for (int i = 0; i < n; i++)
+                    for (int j = i + 1; j < n; j++)
+                        weights[i][j] = weights[j][i] = readNumber();
+                break;
+            case "LOWER_ROW":
+            case "UPPER_COL":
+                for (int i = 0; i < n; i++)
+                    for (int j = 0; j < i; j++)
+                        weights[i][j] = weights[j][i] = readNumber();
+                break;
+            case "UPPER_DIAG_ROW":
+            case "LOWER_DIAG_COL":
+                for (int i = 0; i < n; i++)
+                    for (int j = i; j < n; j++)
+                        weights[i][j] = weights[j][i] = readNumber();
+                break;
+            case "LOWER_DIAG_ROW":
+            case "UPPER_DIAG_COL":
+                for (int i = 0; i < n; i++)
+                    for (int j = 0; j <= i; j++)
+                        weights[i][j] = weights[j][i] = readNumber();
+                break;
+            default:
+                throw new IOException(filename + ": unsupported EDGE_WEIGHT_FORMAT " + edgeWeightFormat);
+        }
+    }
+
+    private void skipSection() {
+        while (skipWhitespace() && !isLetter(buffer.get(p))) {
+            skipLine();
+        }
+    }
+
+    // ===================================================== Tokens =====================================================
+
+    // Skips spaces and line breaks; false at the end of the file.
+    private boolean skipWhitespace() {
+        while (p < limit && buffer.get(p) <= ' ') p++;
+        return p < limit;
+    }
+
+    private void skipLine() {
+        while (p < limit && buffer.get(p) != '\n') p++;
+    }
+
+    private String readKeyword() {
+        int start = p;
+        while (p < limit && (isLetter(buffer.get(p)) || buffer.get(p) == '_' || isDigit(buffer.get(p)))) p++;
+        return ascii(start, p);
+    }
+
+    // The rest of a "KEY : VALUE" line, with the colon and surrounding blanks removed.
+    private String readValue() {
+        while (p < limit && (buffer.get(p) == ' ' || buffer.get(p) == '\t' || buffer.get(p) == ':')) p++;
+        int start = p;
+        skipLine();
+        int end = p;
+        while (end > start && buffer.get(end - 1) <= ' ') end--;
+        return ascii(start, end);
+    }
+
+    // Parses an integer or decimal number with optional exponent. A mantissa below 2^53 with a power of ten
+    // up to 1e22 converts exactly with one multiply or divide; anything else goes through Double.parseDouble.
+    private double readNumber() {
+        skipWhitespace();
+        int start = p;
+        boolean negative = false;
+        if (p < limit && (buffer.get(p) == '-' || buffer.get(p) == '+')) negative = buffer.get(p++) == '-';
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        while (p < limit && isDigit(buffer.get(p))) {
+            mantissa = mantissa * 10 + (buffer.get(p++) - '0');
+            digits++;
+        }
+        if (p < limit && buffer.get(p) == '.') {
+            p++;
+            while (p < limit && isDigit(buffer.get(p))) {
+                mantissa = mantissa * 10 + (buffer.get(p++) - '0');
+                digits++;
+                scale--;
+            }
+        }
+        if (p < limit && (buffer.get(p) == 'e' || buffer.get(p) == 'E')) {
+            p++;
+            boolean negativeExponent = false;
+            if (p < limit && (buffer.get(p) == '-' || buffer.get(p) == '+')) negativeExponent = buffer.get(p++) == '-';
+            int exponent = 0;
+            while (p < limit && isDigit(buffer.get(p))) {
+                exponent = exponent * 10 + (buffer.get(p++) - '0');
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+
+        if (digits > 18 || mantissa > MAX_EXACT_MANTISSA || Math.abs(scale) >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(ascii(start, p));
+        }
+        double value = scale >= 0 ? mantissa * POWERS_OF_TEN[scale] : mantissa / POWERS_OF_TEN[-scale];
+        return negative ? -value : value;
+    }
+
+    private String ascii(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z');
+    }
+
+    private static boolean isNumberStart(byte b) {
+        return isDigit(b) || b == '-' || b == '+' || b == '.';
+    }
+
+    // ===================================================== Results =====================================================
+
+    public String getName() {
+        return name;
+    }
+
+    public EdgeWeightType getEdgeWeightType() {
+        return edgeWeightType;
+    }
+
+    public int getCityCount() {
+        return weights != null ? weights.length : cityCount;
+    }
+
+    // Empty when an EXPLICIT file has no display coordinates
+    public double[] getXs() {
+        return xs;
+    }
+
+    public double[] getYs() {
+        return ys;
+    }
+
+    // Only set for EXPLICIT files
+    public double[][] getWeights() {
+        return weights;
+    }
+}
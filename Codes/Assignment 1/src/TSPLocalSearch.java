@@ -0,0 +1,297 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// 2-opt, Or-opt and a Lin-Kernighan style chain of 2-opt moves over nearest-neighbor candidate lists.
+// Cities whose don't-look bit is set are skipped until a move touches one of their tour edges.
+class TSPLocalSearch {
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_SEGMENT = 3;
+
+    private final TSPInstance tsp;
+    private final int[][] neighbors;
+    private final int maxDepth;
+
+    // Cyclic tour of city ids plus the position of every city; both are only valid during optimize.
+    private int n;
+    private int[] tour;
+    private int[] pos;
+
+    // FIFO of cities whose don't-look bit is off
+    private int[] queue;
+    private boolean[] queued;
+    private int head;
+    private int count;
+
+    // Moves applied by the current LK chain, four cities per move, so it can be rolled back
+    private int[] chain;
+
+    public TSPLocalSearch(TSPInstance tsp) {
+        this(tsp, 10, 6);
+    }
+
+    public TSPLocalSearch(TSPInstance tsp, int candidateListSize, int maxDepth) {
+        this.tsp = tsp;
+        this.neighbors = tsp.getNeighborLists(candidateListSize);
+        this.maxDepth = maxDepth;
+    }
+
+    // Takes and returns a closed tour starting and ending at city 1, like the other solvers.
+    public List<Integer> optimize(List<Integer> closedTour) {
+        n = closedTour.size() - 1;
+        tour = new int[n];
+        pos = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            tour[i] = closedTour.get(i);
+            pos[tour[i]] = i;
+        }
+        if (n < 5) return new ArrayList<>(closedTour);
+
+        queue = new int[n];
+        queued = new boolean[n + 1];
+        chain = new int[4 * maxDepth];
+        head = 0;
+        count = 0;
+        for (int i = 0; i < n; i++) {
+            push(tour[i]);
+        }
+
+        while (count > 0) {
+            int city = poll();
+            if (improveTwoOpt(city) || improveOrOpt(city) || improveLinKernighan(city)) {
+                push(city);
+            }
+        }
+        return toClosedTour();
+    }
+
+    // ======================================================== 2-OPT ========================================================
+
+    private boolean improveTwoOpt(int t1) {
+        for (int dir = 0; dir < 2; dir++) {
+            int t2 = dir == 0 ? next(t1) : prev(t1);
+            double d12 = dist(t1, t2);
+
+            for (int t3 : neighbors[t1]) {
+                double d13 = dist(t1, t3);
+                if (d12 - d13 <= EPSILON) break;
+
+                int t4 = dir == 0 ? next(t3) : prev(t3);
+                if (t3 == t2 || t4 == t1) continue;
+
+                double delta = d13 + dist(t2, t4) - d12 - dist(t3, t4);
+                if (delta < -EPSILON) {
+                    move2Opt(t1, t2, t3, t4);
+                    pushAll(t1, t2, t3, t4);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // ======================================================== OR-OPT ========================================================
+
+    // Moves the segment of up to MAX_SEGMENT cities that starts at the given city, in either orientation,
+    // between two adjacent cities near one of its ends.
+    private boolean improveOrOpt(int first) {
+        int last = first;
+        for (int length = 1; length <= MAX_SEGMENT; length++) {
+            if (length > 1) last = next(last);
+            int p0 = prev(first);
+            int n0 = next(last);
+            if (n0 == p0 || last == p0) return false;
+
+            double removed = dist(p0, first) + dist(last, n0) - dist(p0, n0);
+            if (removed <= EPSILON) continue;
+
+            for (int end = 0; end < 2; end++) {
+                int anchor = end == 0 ? first : last;
+                for (int c : neighbors[anchor]) {
+                    if (dist(anchor, c) >= removed) break;
+                    if (tryInsertSegment(first, last, p0, n0, removed, prev(c), c)
+                        || tryInsertSegment(first, last, p0, n0, removed, c, next(c))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean tryInsertSegment(int first, int last, int p0, int n0, double removed, int x, int y) {
+        if (x == p0 || x == n0 || y == p0 || inSegment(x, first, last) || inSegment(y, first, last)) return false;
+
+        double base = dist(x, y) + removed;
+        double reversed = dist(x, last) + dist(first, y) - base;
+        double sameOrientation = dist(x, first) + dist(last, y) - base;
+        if (Math.min(reversed, sameOrientation) >= -EPSILON) return false;
+
+        // Two 2-opt moves place the segment reversed between x and y, a third flips it back.
+        move2Opt(p0, first, x, y);
+        move2Opt(p0, x, n0, last);
+        if (sameOrientation < reversed) move2Opt(x, last, first, y);
+
+        pushAll(p0, n0, first, last);
+        pushAll(x, y, first, last);
+        return true;
+    }
+
+    private boolean inSegment(int city, int first, int last) {
+        int offset = (pos[city] - pos[first] + n) % n;
+        return offset <= (pos[last] - pos[first] + n) % n;
+    }
+
+    // ================================================== LIN-KERNIGHAN STYLE ==================================================
+
+    // Breaks (t1, t2) and repeatedly adds (t2, t3) / breaks (t3, t4) as a 2-opt move, keeping the open gain positive.
+    // The chain is cut back to the depth with the best closed gain, or undone completely when nothing was gained.
+    private boolean improveLinKernighan(int t1) {
+        for (int dir = 0; dir < 2; dir++) {
+            int t2 = dir == 0 ? next(t1) : prev(t1);
+            double openGain = dist(t1, t2);
+            double bestGain = EPSILON;
+            int bestDepth = 0;
+            int depth = 0;
+
+            while (depth < maxDepth) {
+                boolean forward = next(t1) == t2;
+                int bestT3 = -1;
+                int bestT4 = -1;
+                double bestLookahead = -Double.MAX_VALUE;
+
+                for (int t3 : neighbors[t2]) {
+                    double g = openGain - dist(t2, t3);
+                    if (g <= EPSILON) break;
+                    if (t3 == t1 || t3 == next(t2) || t3 == prev(t2) || inChain(t3, depth)) continue;
+
+                    int t4 = forward ? prev(t3) : next(t3);
+                    if (t4 == t2) continue;
+                    double lookahead = dist(t3, t4) - dist(t2, t3);
+                    if (lookahead > bestLookahead) {
+                        bestLookahead = lookahead;
+                        bestT3 = t3;
+                        bestT4 = t4;
+                    }
+                }
+                if (bestT3 < 0) break;
+
+                openGain += bestLookahead;
+                move2Opt(t1, t2, bestT4, bestT3);
+                recordChain(depth++, t1, t2, bestT4, bestT3);
+                t2 = bestT4;
+
+                double closedGain = openGain - dist(t1, t2);
+                if (closedGain > bestGain) {
+                    bestGain = closedGain;
+                    bestDepth = depth;
+                }
+            }
+
+            while (depth > bestDepth) {
+                depth--;
+                int a = chain[4 * depth], b = chain[4 * depth + 1], c = chain[4 * depth + 2], d = chain[4 * depth + 3];
+                move2Opt(a, c, b, d);
+            }
+            if (bestDepth > 0) {
+                for (int k = 0; k < 4 * bestDepth; k++) {
+                    push(chain[k]);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void recordChain(int depth, int a, int b, int c, int d) {
+        chain[4 * depth] = a;
+        chain[4 * depth + 1] = b;
+        chain[4 * depth + 2] = c;
+        chain[4 * depth + 3] = d;
+    }
+
+    // A city already used by the chain is not broken again, so the chain cannot undo its own edges.
+    private boolean inChain(int city, int depth) {
+        for (int k = 0; k < 4 * depth; k++) {
+            if (chain[k] == city) return true;
+        }
+        return false;
+    }
+
+    // ===================================================== TOUR UPDATES =====================================================
+
+    // Removes edges (a, b) and (c, d) and adds (a, c) and (b, d). b must follow a in the same direction that d follows c.
+    private void move2Opt(int a, int b, int c, int d) {
+        if (next(a) == b) {
+            reverse(pos[b], pos[c]);
+        } else {
+            reverse(pos[a], pos[d]);
+        }
+    }
+
+    // Reverses the cyclic path from position i forward to position j, or its complement when that is shorter;
+    // both give the same cycle.
+    private void reverse(int i, int j) {
+        int length = (j - i + n) % n + 1;
+        if (2 * length > n) {
+            int t = i;
+            i = (j + 1) % n;
+            j = (t - 1 + n) % n;
+            length = n - length;
+        }
+        for (int k = 0; k < length / 2; k++) {
+            int a = tour[i], b = tour[j];
+            tour[i] = b;
+            pos[b] = i;
+            tour[j] = a;
+            pos[a] = j;
+            i = (i + 1) % n;
+            j = (j - 1 + n) % n;
+        }
+    }
+
+    private int next(int city) {
+        int p = pos[city] + 1;
+        return tour[p == n ? 0 : p];
+    }
+
+    private int prev(int city) {
+        int p = pos[city];
+        return tour[p == 0 ? n - 1 : p - 1];
+    }
+
+    private double dist(int a, int b) {
+        return tsp.getDistance(a, b);
+    }
+
+    private void pushAll(int a, int b, int c, int d) {
+        push(a);
+        push(b);
+        push(c);
+        push(d);
+    }
+
+    private void push(int city) {
+        if (queued[city]) return;
+        queued[city] = true;
+        queue[(head + count) % n] = city;
+        count++;
+    }
+
+    private int poll() {
+        int city = queue[head];
+        head = (head + 1) % n;
+        count--;
+        queued[city] = false;
+        return city;
+    }
+
+    private List<Integer> toClosedTour() {
+        List<Integer> closed = new ArrayList<>(n + 1);
+        int start = pos[1];
+        for (int k = 0; k < n; k++) {
+            closed.add(tour[(start + k) % n]);
+        }
+        closed.add(1);
+        return closed;
+    }
+}
@@ -0,0 +1,161 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Tours are int[] of length n + 1 with the fixed start city at both ends, so positions 1..n-1 are movable.
+class TSPMoves {
+    static final int SWAP = 0;
+    static final int TWO_OPT = 1;
+    static final int INSERTION = 2;
+
+    static class Move {
+        int type = -1;
+        int i;
+        int j;
+        double delta = Double.MAX_VALUE;
+
+        void clear() {
+            type = -1;
+            delta = Double.MAX_VALUE;
+        }
+
+        void set(int type, int i, int j, double delta) {
+            this.type = type;
+            this.i = i;
+            this.j = j;
+            this.delta = delta;
+        }
+    }
+
+    public static int[] toArray(List<Integer> tour) {
+        int[] array = new int[tour.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = tour.get(i);
+        }
+        return array;
+    }
+
+    public static List<Integer> toList(int[] tour) {
+        List<Integer> list = new ArrayList<>(tour.length);
+        for (int city : tour) {
+            list.add(city);
+        }
+        return list;
+    }
+
+    // Position of every city id in the tour; the fixed start city maps to position 0.
+    public static int[] positions(int[] tour) {
+        int[] positions = new int[tour.length];
+        for (int i = tour.length - 2; i >= 0; i--) {
+            positions[tour[i]] = i;
+        }
+        return positions;
+    }
+
+    // Every move only rearranges the cities between its two positions; a swap only touches the two ends.
+    public static void updatePositions(int move, int[] tour, int[] positions, int i, int j) {
+        if (move == SWAP) {
+            positions[tour[i]] = i;
+            positions[tour[j]] = j;
+            return;
+        }
+        for (int k = Math.min(i, j); k <= Math.max(i, j); k++) {
+            positions[tour[k]] = k;
+        }
+    }
+
+    public static double tourCost(int[] tour, TSPInstance tsp) {
+        double cost = 0;
+        for (int i = 0; i < tour.length - 1; i++) {
+            cost += tsp.getDistance(tour[i], tour[i + 1]);
+        }
+        return cost;
+    }
+
+    public static double delta(int move, int[] tour, int i, int j, TSPInstance tsp) {
+        switch (move) {
+            case SWAP: return swapDelta(tour, i, j, tsp);
+            case TWO_OPT: return twoOptDelta(tour, Math.min(i, j), Math.max(i, j), tsp);
+            case INSERTION: return insertionDelta(tour, i, j, tsp);
+            default: throw new IllegalArgumentException("Unknown move: " + move);
+        }
+    }
+
+    public static void apply(int move, int[] tour, int i, int j) {
+        switch (move) {
+            case SWAP: swap(tour, i, j); break;
+            case TWO_OPT: reverse(tour, Math.min(i, j), Math.max(i, j)); break;
+            case INSERTION: insert(tour, i, j); break;
+            default: throw new IllegalArgumentException("Unknown move: " + move);
+        }
+    }
+
+    // ------------------------------------------------------- Swap -------------------------------------------------------
+
+    public static double swapDelta(int[] tour, int i, int j, TSPInstance tsp) {
+        if (i == j) return 0;
+        if (i > j) { int t = i; i = j; j = t; }
+
+        int a = tour[i - 1], ci = tour[i], b = tour[i + 1];
+        int c = tour[j - 1], cj = tour[j], d = tour[j + 1];
+
+        if (j == i + 1) {
+            return tsp.getDistance(a, cj) + tsp.getDistance(ci, d)
+                 - tsp.getDistance(a, ci) - tsp.getDistance(cj, d);
+        }
+        return tsp.getDistance(a, cj) + tsp.getDistance(cj, b) + tsp.getDistance(c, ci) + tsp.getDistance(ci, d)
+             - tsp.getDistance(a, ci) - tsp.getDistance(ci, b) - tsp.getDistance(c, cj) - tsp.getDistance(cj, d);
+    }
+
+    public static void swap(int[] tour, int i, int j) {
+        int t = tour[i];
+        tour[i] = tour[j];
+        tour[j] = t;
+    }
+
+    // ------------------------------------------------------ 2-Opt -------------------------------------------------------
+
+    // Reverses tour[i..j] (i < j), replacing edges (i-1, i) and (j, j+1).
+    public static double twoOptDelta(int[] tour, int i, int j, TSPInstance tsp) {
+        if (i >= j) return 0;
+        int a = tour[i - 1], b = tour[i];
+        int c = tour[j], d = tour[j + 1];
+        return tsp.getDistance(a, c) + tsp.getDistance(b, d) - tsp.getDistance(a, b) - tsp.getDistance(c, d);
+    }
+
+    public static void reverse(int[] tour, int i, int j) {
+        while (i < j) {
+            int t = tour[i];
+            tour[i++] = tour[j];
+            tour[j--] = t;
+        }
+    }
+
+    // ---------------------------------------------------- Insertion -----------------------------------------------------
+
+    // Removes the city at position from and reinserts it so that it ends up at position to.
+    public static double insertionDelta(int[] tour, int from, int to, TSPInstance tsp) {
+        if (from == to) return 0;
+        int p = tour[from - 1], city = tour[from], n = tour[from + 1];
+        double removed = tsp.getDistance(p, n) - tsp.getDistance(p, city) - tsp.getDistance(city, n);
+
+        int u, v;
+        if (from < to) {
+            u = tour[to];
+            v = tour[to + 1];
+        } else {
+            u = tour[to - 1];
+            v = tour[to];
+        }
+        return removed + tsp.getDistance(u, city) + tsp.getDistance(city, v) - tsp.getDistance(u, v);
+    }
+
+    public static void insert(int[] tour, int from, int to) {
+        int city = tour[from];
+        if (from < to) {
+            System.arraycopy(tour, from + 1, tour, from, to - from);
+        } else if (from > to) {
+            System.arraycopy(tour, to, tour, to + 1, from - to);
+        }
+        tour[to] = city;
+    }
+}
@@ -1,9 +1,25 @@
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 class TSPSolver {
+    private static final int PARALLEL_SCAN_THRESHOLD = 256;
+    private static final int PARALLEL_SCAN_ROWS = 16;
+    // Annealing iterations between two looks at the checkpoint clock
+    private static final int CHECKPOINT_CHECK_INTERVAL = 4096;
+    private static final int LEGACY_ANNEALING = 0;
+    private static final int DELTA_ANNEALING = 1;
+
     private TSPInstance tsp;
     private Random rand;
     private long seed;
+    private int[][] neighbors;
+    private int candidateListSize;
+    private File checkpointFile;
+    private long checkpointIntervalNanos;
 
     public TSPSolver(TSPInstance tsp, long seed) {
         this.tsp = tsp;
@@ -12,9 +28,27 @@ class TSPSolver {
         // System.out.println("Seed Value: " + seed);
     }
 
+    // Restricts the delta SA and tabu moves to pairs that make a city adjacent to one of its k nearest cities.
+    // A size of 0 goes back to the full neighborhood.
+    public void setCandidateListSize(int k) {
+        this.neighbors = k > 0 ? tsp.getNeighborLists(k) : null;
+        this.candidateListSize = Math.max(k, 0);
+    }
+
+    // Both annealing methods save their state to file at most every intervalMillis, and once more, marked
+    // finished, when they return, from a background thread. A later call of the same method on the same instance
+    // with the same settings and the same random state at the start (a solver with the same seed, say) resumes an
+    // unfinished run from the file and continues exactly where it stopped, up to its own maxIterations. A finished
+    // run is never resumed; it is started afresh and overwrites the file. null turns this off.
+    public void setCheckpoint(File file, long intervalMillis) {
+        this.checkpointFile = file;
+        this.checkpointIntervalNanos = intervalMillis * 1_000_000L;
+    }
+
     // ==================================================== Simulated Annealing ====================================================
 
     public List<Integer> simulatedAnnealing(double initialTemp, double coolingRate, int maxIterations) {
+        byte[] start = checkpointFile == null ? null : CheckpointFile.randomState(rand);
         List<Integer> currentTour = generateInitialTour();
         double currentCost = calculateCost(currentTour);
         List<Integer> bestTour = new ArrayList<>(currentTour);
@@ -22,6 +56,19 @@ class TSPSolver {
         double temperature = initialTemp;
 
         int iter = 0;
+        double[] settings = annealingSettings(LEGACY_ANNEALING, initialTemp, coolingRate);
+        CheckpointFile checkpoint = checkpointFile == null ? null : new CheckpointFile(checkpointFile);
+        AnnealingCheckpoint resumed = checkpoint == null ? null : resumeAnnealing(checkpoint, settings, start);
+        if (resumed != null) {
+            currentTour = TSPMoves.toList(resumed.currentTour);
+            currentCost = resumed.currentCost;
+            bestTour = TSPMoves.toList(resumed.bestTour);
+            bestCost = resumed.bestCost;
+            temperature = resumed.temperature;
+            iter = resumed.iteration;
+        }
+        long lastCheckpoint = System.nanoTime();
+
         while (iter < maxIterations && temperature >= 1e-3) {
             List<Integer> newTour = new ArrayList<>(currentTour);
             swapCities(newTour);
@@ -37,12 +84,24 @@ class TSPSolver {
             }
             temperature *= coolingRate;
             iter++;
+
+            if (checkpoint != null && iter % CHECKPOINT_CHECK_INTERVAL == 0
+                && System.nanoTime() - lastCheckpoint >= checkpointIntervalNanos) {
+                saveAnnealing(checkpoint, settings, start, false, iter, temperature, TSPMoves.toArray(currentTour),
+                    currentCost, TSPMoves.toArray(bestTour), bestCost, false);
+                lastCheckpoint = System.nanoTime();
+            }
+        }
+        if (checkpoint != null) {
+            saveAnnealing(checkpoint, settings, start, true, iter, temperature, TSPMoves.toArray(currentTour),
+                currentCost, TSPMoves.toArray(bestTour), bestCost, false);
+            checkpoint.close();
         }
         return bestTour;
     }
 
     private List<Integer> generateInitialTour() {
-        return TSPInitialSolution.generateRandomTour(tsp.getCities().size());
+        return TSPInitialSolution.generateRandomTour(tsp.getCityCount(), rand);
     }
 
     private double calculateCost(List<Integer> tour) {
@@ -60,6 +119,143 @@ class TSPSolver {
         return newCost < oldCost || rand.nextDouble() < Math.exp((oldCost - newCost) / temperature);
     }
 
+    // ============================================== Delta-Evaluated Simulated Annealing ==============================================
+
+    public List<Integer> simulatedAnnealingDelta(double initialTemp, double coolingRate, int maxIterations) {
+        byte[] start = checkpointFile == null ? null : CheckpointFile.randomState(rand);
+        int[] currentTour = TSPMoves.toArray(generateInitialTour());
+        int[] bestTour = currentTour.clone();
+        double currentCost = TSPMoves.tourCost(currentTour, tsp);
+        double bestCost = currentCost;
+        double temperature = initialTemp;
+        int size = currentTour.length - 2;
+        if (size < 2) return TSPMoves.toList(bestTour);
+
+        // The best tour is only copied out when the search is about to leave it.
+        boolean atBest = true;
+        int iter = 0;
+        double[] settings = annealingSettings(DELTA_ANNEALING, initialTemp, coolingRate);
+        CheckpointFile checkpoint = checkpointFile == null ? null : new CheckpointFile(checkpointFile);
+        AnnealingCheckpoint resumed = checkpoint == null ? null : resumeAnnealing(checkpoint, settings, start);
+        if (resumed != null) {
+            currentTour = resumed.currentTour;
+            currentCost = resumed.currentCost;
+            bestTour = resumed.bestTour;
+            bestCost = resumed.bestCost;
+            temperature = resumed.temperature;
+            atBest = resumed.atBest;
+            iter = resumed.iteration;
+        }
+        int[] positions = neighbors == null ? null : TSPMoves.positions(currentTour);
+        long lastCheckpoint = System.nanoTime();
+
+        while (iter < maxIterations && temperature >= 1e-3) {
+            int move = rand.nextInt(3);
+            int i, j;
+            if (neighbors == null) {
+                i = rand.nextInt(size) + 1;
+                j = rand.nextInt(size) + 1;
+            } else {
+                int p = rand.nextInt(size + 1);
+                int[] candidates = neighbors[currentTour[p]];
+                int q = positions[candidates[rand.nextInt(candidates.length)]];
+                i = Math.min(p, q) + 1;
+                j = Math.max(p, q);
+                if (move == TSPMoves.INSERTION) {
+                    int t = i;
+                    i = j;
+                    j = t;
+                }
+            }
+            double delta = TSPMoves.delta(move, currentTour, i, j, tsp);
+
+            if (i != j && acceptDelta(delta, temperature)) {
+                if (atBest && delta >= 0) {
+                    System.arraycopy(currentTour, 0, bestTour, 0, currentTour.length);
+                    atBest = false;
+                }
+                TSPMoves.apply(move, currentTour, i, j);
+                if (positions != null) TSPMoves.updatePositions(move, currentTour, positions, i, j);
+                currentCost += delta;
+                if (currentCost < bestCost) {
+                    bestCost = currentCost;
+                    atBest = true;
+                }
+            }
+            temperature *= coolingRate;
+            iter++;
+
+            if (checkpoint != null && iter % CHECKPOINT_CHECK_INTERVAL == 0
+                && System.nanoTime() - lastCheckpoint >= checkpointIntervalNanos) {
+                saveAnnealing(checkpoint, settings, start, false, iter, temperature, currentTour.clone(),
+                    currentCost, bestTour.clone(), bestCost, atBest);
+                lastCheckpoint = System.nanoTime();
+            }
+        }
+        if (checkpoint != null) {
+            saveAnnealing(checkpoint, settings, start, true, iter, temperature, currentTour.clone(), currentCost,
+                bestTour.clone(), bestCost, atBest);
+            checkpoint.close();
+        }
+        return TSPMoves.toList(atBest ? currentTour : bestTour);
+    }
+
+    private boolean acceptDelta(double delta, double temperature) {
+        return delta < 0 || rand.nextDouble() < Math.exp(-delta / temperature);
+    }
+
+    // Restores the solver's Random from the checkpoint and returns the rest of it; null, after a warning, when
+    // the file holds no unfinished run of this method, instance, settings and starting random state
+    private AnnealingCheckpoint resumeAnnealing(CheckpointFile checkpoint, double[] settings, byte[] start) {
+        try (DataInputStream in = checkpoint.open()) {
+            if (in == null) return null;
+            AnnealingCheckpoint resumed = AnnealingCheckpoint.readFrom(in);
+            if (!Arrays.equals(resumed.settings, settings) || !Arrays.equals(resumed.start, start)) {
+                System.err.println("Ignoring checkpoint " + checkpoint.getFile() + ": other method, settings or seed");
+                return null;
+            }
+            if (resumed.finished) {
+                System.err.println("Ignoring checkpoint " + checkpoint.getFile() + ": that run has finished");
+                return null;
+            }
+            rand = CheckpointFile.restoreRandom(resumed.random);
+            return resumed;
+        } catch (IOException e) {
+            System.err.println("Ignoring checkpoint " + checkpoint.getFile() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveAnnealing(CheckpointFile checkpoint, double[] settings, byte[] start, boolean finished,
+                               int iteration, double temperature, int[] currentTour, double currentCost,
+                               int[] bestTour, double bestCost, boolean atBest) {
+        AnnealingCheckpoint state = new AnnealingCheckpoint(settings, start, finished, iteration, temperature,
+            currentTour, currentCost, bestTour, bestCost, atBest, CheckpointFile.randomState(rand));
+        checkpoint.save(state::writeTo);
+    }
+
+    private double[] annealingSettings(int method, double initialTemp, double coolingRate) {
+        return new double[]{method, tsp.getCityCount(), tsp.contentHash(), candidateListSize, initialTemp, coolingRate};
+    }
+
+    // ================================================== Parallel Tempering ==================================================
+
+    // Runs one chain per temperature on its own thread; the replica seeds are split from this solver's seed.
+    public List<Integer> parallelTempering(int replicas, double minTemp, double maxTemp, int sweeps, int movesPerSweep) {
+        return new ParallelTempering(tsp, seed, replicas, minTemp, maxTemp).run(sweeps, movesPerSweep);
+    }
+
+    // ======================================================== LOCAL SEARCH ========================================================
+
+    public List<Integer> localSearch() {
+        return new TSPLocalSearch(tsp).optimize(generateInitialTour());
+    }
+
+    // Fast finisher for the tour returned by any of the metaheuristics.
+    public List<Integer> localSearch(List<Integer> tour) {
+        return new TSPLocalSearch(tsp).optimize(tour);
+    }
+
     // ======================================================== TABU SEARCH ========================================================
 
     public List<Integer> tabuSearch(int maxIterations, int tabuTenure) {
@@ -132,4 +328,136 @@ class TSPSolver {
     private String moveKey(List<Integer> tour) {
         return tour.toString();
     }
+
+    // ================================================= Delta-Evaluated Tabu Search =================================================
+
+    public List<Integer> tabuSearchDelta(int maxIterations, int tabuTenure) {
+        return tabuSearchDelta(maxIterations, tabuTenure, null);
+    }
+
+    // With a pool, neighborhoods of at least PARALLEL_SCAN_THRESHOLD positions are scanned in parallel.
+    // The reduction keeps the sequential scan order on ties, so the result does not depend on the pool.
+    public List<Integer> tabuSearchDelta(int maxIterations, int tabuTenure, ForkJoinPool pool) {
+        int[] currentTour = TSPMoves.toArray(generateInitialTour());
+        int[] bestTour = currentTour.clone();
+        double currentCost = TSPMoves.tourCost(currentTour, tsp);
+        double bestCost = currentCost;
+        int[] tabuUntil = new int[currentTour.length]; // Indexed by city id, holds the iteration its tenure ends
+        int[] positions = neighbors == null ? null : TSPMoves.positions(currentTour);
+        TSPMoves.Move move = new TSPMoves.Move();
+
+        int iter = 0;
+        while (iter < maxIterations) {
+            findBestMove(currentTour, positions, currentCost, bestCost, tabuUntil, iter, move, pool);
+            if (move.type < 0) break;
+
+            int cityI = currentTour[move.i];
+            int cityJ = currentTour[move.j];
+            TSPMoves.apply(move.type, currentTour, move.i, move.j);
+            if (positions != null) TSPMoves.updatePositions(move.type, currentTour, positions, move.i, move.j);
+            currentCost += move.delta;
+            if (currentCost < bestCost) {
+                System.arraycopy(currentTour, 0, bestTour, 0, currentTour.length);
+                bestCost = currentCost;
+            }
+
+            tabuUntil[cityI] = iter + tabuTenure;
+            tabuUntil[cityJ] = iter + tabuTenure;
+            iter++;
+        }
+        return TSPMoves.toList(bestTour);
+    }
+
+    private void findBestMove(int[] tour, int[] positions, double currentCost, double bestCost, int[] tabuUntil, int iter,
+                              TSPMoves.Move best, ForkJoinPool pool) {
+        int size = tour.length - 2;
+        // Candidate scans walk every position including the fixed start, full scans only the movable ones.
+        int fromRow = positions == null ? 1 : 0;
+        int toRow = positions == null ? size : size + 1;
+        if (pool == null || size < PARALLEL_SCAN_THRESHOLD) {
+            best.clear();
+            scanMoves(tour, positions, fromRow, toRow, currentCost, bestCost, tabuUntil, iter, best);
+            return;
+        }
+        TSPMoves.Move result = pool.invoke(
+            new MoveScanTask(tour, positions, fromRow, toRow, currentCost, bestCost, tabuUntil, iter));
+        best.set(result.type, result.i, result.j, result.delta);
+    }
+
+    // Scans the moves generated by rows fromRow <= row < toRow in order, keeping the first strictly best admissible move.
+    // Without candidate lists a row i pairs with every later position j; with them a row is a position whose city
+    // is paired with the positions of its nearest cities.
+    private void scanMoves(int[] tour, int[] positions, int fromRow, int toRow, double currentCost, double bestCost,
+                           int[] tabuUntil, int iter, TSPMoves.Move best) {
+        int size = tour.length - 2;
+
+        for (int row = fromRow; row < toRow; row++) {
+            if (positions == null) {
+                for (int j = row + 1; j <= size; j++) {
+                    evaluateMove(tour, row, j, currentCost, bestCost, tabuUntil, iter, best);
+                }
+            } else {
+                for (int candidate : neighbors[tour[row]]) {
+                    int q = positions[candidate];
+                    int i = Math.min(row, q) + 1;
+                    int j = Math.max(row, q);
+                    if (i < j) evaluateMove(tour, i, j, currentCost, bestCost, tabuUntil, iter, best);
+                }
+            }
+        }
+    }
+
+    // A move is tabu while both cities it touches are still within their tenure, unless it beats the best tour.
+    private void evaluateMove(int[] tour, int i, int j, double currentCost, double bestCost, int[] tabuUntil, int iter,
+                              TSPMoves.Move best) {
+        boolean tabu = tabuUntil[tour[i]] > iter && tabuUntil[tour[j]] > iter;
+        for (int type = TSPMoves.SWAP; type <= TSPMoves.TWO_OPT; type++) {
+            double delta = TSPMoves.delta(type, tour, i, j, tsp);
+            if (delta < best.delta && (!tabu || currentCost + delta < bestCost)) {
+                best.set(type, i, j, delta);
+            }
+        }
+    }
+
+    // Never serialized; ForkJoinTask is only Serializable for completeness
+    @SuppressWarnings("serial")
+    private class MoveScanTask extends RecursiveTask<TSPMoves.Move> {
+        private final int[] tour;
+        private final int[] positions;
+        private final int fromRow;
+        private final int toRow;
+        private final double currentCost;
+        private final double bestCost;
+        private final int[] tabuUntil;
+        private final int iter;
+
+        MoveScanTask(int[] tour, int[] positions, int fromRow, int toRow, double currentCost, double bestCost,
+                     int[] tabuUntil, int iter) {
+            this.tour = tour;
+            this.positions = positions;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.currentCost = currentCost;
+            this.bestCost = bestCost;
+            this.tabuUntil = tabuUntil;
+            this.iter = iter;
+        }
+
+        @Override
+        protected TSPMoves.Move compute() {
+            if (toRow - fromRow <= PARALLEL_SCAN_ROWS) {
+                TSPMoves.Move best = new TSPMoves.Move();
+                scanMoves(tour, positions, fromRow, toRow, currentCost, bestCost, tabuUntil, iter, best);
+                return best;
+            }
+            int mid = (fromRow + toRow) >>> 1;
+            MoveScanTask left = new MoveScanTask(tour, positions, fromRow, mid, currentCost, bestCost, tabuUntil, iter);
+            MoveScanTask right = new MoveScanTask(tour, positions, mid, toRow, currentCost, bestCost, tabuUntil, iter);
+            left.fork();
+            TSPMoves.Move rightBest = right.compute();
+            TSPMoves.Move leftBest = left.join();
+            // Left rows come first in scan order, so the right half only wins on a strictly smaller delta.
+            return rightBest.delta < leftBest.delta ? rightBest : leftBest;
+        }
+    }
 }
@@ -0,0 +1,122 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Races parameter settings of the delta SA (initialTemp x coolingRate) and the delta tabu search (tabuTenure) with
+// F-Race and prints the winner per instance class. A class holds the instances of one order of magnitude (1-9,
+// 10-99, ... cities), since good temperatures and tenures follow the tour length more than anything else. Block b
+// of a class runs file b % files with run seed b / files, so every setting meets the same instances and seeds.
+public class Tuner {
+    private static final int RUNS = 10;
+    private static final long SEED = 42;
+    private static final int FIRST_TEST = 5;
+    private static final double CONFIDENCE = 0.95;
+
+    private static final double[] INITIAL_TEMPS = {10, 100, 1000, 10000};
+    private static final double[] COOLING_RATES = {0.9, 0.99, 0.999};
+    private static final int MAX_ITERATIONS_SA = 10000;
+    private static final int[] TABU_TENURES = {5, 10, 15, 20, 30};
+    private static final int MAX_ITERATIONS_TS = 500;
+
+    // One parameter setting of an algorithm
+    private static class Candidate {
+        final String parameters;
+        final MultiStartRunner.Algorithm algorithm;
+
+        Candidate(String parameters, MultiStartRunner.Algorithm algorithm) {
+            this.parameters = parameters;
+            this.algorithm = algorithm;
+        }
+    }
+
+    // args: "sa" or "tabu" to race only that algorithm, then instance files (default: every .txt file in Data/)
+    public static void main(String[] args) throws IOException {
+        List<String> files = new ArrayList<>(Arrays.asList(args));
+        boolean sa = true;
+        boolean tabu = true;
+        if (!files.isEmpty() && (files.get(0).equals("sa") || files.get(0).equals("tabu"))) {
+            sa = files.get(0).equals("sa");
+            tabu = !sa;
+            files.remove(0);
+        }
+        if (files.isEmpty()) {
+            File[] found = new File("Data").listFiles((dir, name) -> name.endsWith(".txt"));
+            if (found == null || found.length == 0) throw new IOException("No .txt files in Data");
+            Arrays.sort(found);
+            for (File file : found) files.add(file.getPath());
+        }
+
+        // Classes and their files in order of size
+        Map<Integer, List<TSPInstance>> classes = new TreeMap<>();
+        Map<Integer, List<String>> classFiles = new TreeMap<>();
+        List<TSPInstance> instances = new ArrayList<>();
+        for (String file : files) instances.add(InstanceCache.shared().get(file));
+        Integer[] order = new Integer[files.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> instances.get(i).getCityCount()));
+        for (int i : order) {
+            int digits = String.valueOf(instances.get(i).getCityCount()).length();
+            classes.computeIfAbsent(digits, d -> new ArrayList<>()).add(instances.get(i));
+            classFiles.computeIfAbsent(digits, d -> new ArrayList<>()).add(files.get(i));
+        }
+
+        List<Candidate> saCandidates = new ArrayList<>();
+        for (double initialTemp : INITIAL_TEMPS) {
+            for (double coolingRate : COOLING_RATES) {
+                saCandidates.add(new Candidate("T0=" + initialTemp + " rate=" + coolingRate,
+                    solver -> solver.simulatedAnnealingDelta(initialTemp, coolingRate, MAX_ITERATIONS_SA)));
+            }
+        }
+        List<Candidate> tabuCandidates = new ArrayList<>();
+        for (int tabuTenure : TABU_TENURES) {
+            tabuCandidates.add(new Candidate("tenure=" + tabuTenure,
+                solver -> solver.tabuSearchDelta(MAX_ITERATIONS_TS, tabuTenure)));
+        }
+
+        long[] runSeeds = MultiStartRunner.runSeeds(SEED, RUNS);
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        Race race = new Race(executor, FIRST_TEST, CONFIDENCE, 0, System.out);
+        try {
+            List<String> rows = new ArrayList<>();
+            for (Map.Entry<Integer, List<TSPInstance>> entry : classes.entrySet()) {
+                int digits = entry.getKey();
+                String name = (digits == 1 ? 1 : (int) Math.pow(10, digits - 1)) + "-"
+                    + ((int) Math.pow(10, digits) - 1) + " Cities";
+                System.out.println(name + ": " + String.join(" ", classFiles.get(digits)));
+                if (sa) rows.add(race(race, name, "SA", saCandidates, entry.getValue(), runSeeds));
+                if (tabu) rows.add(race(race, name, "Tabu", tabuCandidates, entry.getValue(), runSeeds));
+            }
+
+            System.out.printf("%-18s %-10s %-28s %-10s %-10s %-12s %-12s\n",
+                              "Instance Class", "Algorithm", "Best Parameters", "Survivors", "Blocks", "Evaluations",
+                              "Mean Cost");
+            for (String row : rows) System.out.println(row);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String race(Race race, String className, String algorithm, List<Candidate> candidates,
+                               List<TSPInstance> instances, long[] runSeeds) throws InterruptedException {
+        int files = instances.size();
+        Race.Result result = race.run(className + " " + algorithm, candidates.size(), files * runSeeds.length,
+            (candidate, block) -> {
+                TSPInstance tsp = instances.get(block % files);
+                TSPSolver solver = new TSPSolver(tsp, runSeeds[block / files]);
+                List<Integer> tour = candidates.get(candidate).algorithm.run(solver);
+                return TSPInitialSolution.calculateTourCost(tour, tsp);
+            });
+        return String.format("%-18s %-10s %-28s %-10d %-10d %-12d %-12.2f", className, algorithm,
+            candidates.get(result.survivors[0]).parameters, result.survivors.length, result.blocks,
+            result.evaluations, result.meanCosts[0]);
+    }
+}
@@ -0,0 +1,62 @@
+package topaco.utils;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD versions of ArrayKernels. The prefix sum adds in a different order than the scalar loop, so its sums can
+// differ in the last bits; the products and the multiply give the same doubles.
+public class VectorArrayKernels extends ArrayKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void maskedProducts(double[] a, double[] b, int offset, boolean[] skipA, boolean[] skipB,
+                               double[] out, int from, int to) {
+        DoubleVector zero = DoubleVector.zero(SPECIES);
+        int j = from;
+        for (int bound = from + SPECIES.loopBound(to - from); j < bound; j += SPECIES.length()) {
+            VectorMask<Double> skip = VectorMask.fromArray(SPECIES, skipA, j).or(VectorMask.fromArray(SPECIES, skipB, j));
+            DoubleVector product = DoubleVector.fromArray(SPECIES, a, offset + j).mul(DoubleVector.fromArray(SPECIES, b, offset + j));
+            product.blend(zero, skip).intoArray(out, j);
+        }
+        super.maskedProducts(a, b, offset, skipA, skipB, out, j, to);
+    }
+
+    // Each block is scanned in log2(lanes) shifted adds, then offset by the total of the blocks before it
+    @Override
+    public double prefixSum(double[] values, int from, int to) {
+        int lanes = SPECIES.length();
+        double carry = 0.0;
+        int j = from;
+        for (int bound = from + SPECIES.loopBound(to - from); j < bound; j += lanes) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, j);
+            for (int shift = 1; shift < lanes; shift <<= 1) {
+                v = v.add(v.unslice(shift));
+            }
+            v = v.add(carry);
+            v.intoArray(values, j);
+            carry = values[j + lanes - 1];
+        }
+        for (; j < to; j++) {
+            carry += values[j];
+            values[j] = carry;
+        }
+        return carry;
+    }
+
+    @Override
+    public void multiply(double[] values, double factor) {
+        int j = 0;
+        for (int bound = SPECIES.loopBound(values.length); j < bound; j += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, values, j).mul(factor).intoArray(values, j);
+        }
+        for (; j < values.length; j++) {
+            values[j] *= factor;
+        }
+    }
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+}
@@ -0,0 +1,111 @@
+package topaco;
+
+import topaco.aco.ACO;
+import topaco.batch.BatchConfig;
+import topaco.island.Island;
+import topaco.island.IslandConfig;
+import topaco.model.InstanceCache;
+import topaco.model.ProblemInstance;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+// Island-model entry point: runs one colony that migrates with the others; see IslandConfig.USAGE for the settings
+public class Islands {
+    public static void main(String[] args) {
+        if (args.length > 0 && (args[0].equals("--help") || args[0].equals("-h"))) {
+            System.out.println(IslandConfig.USAGE);
+            return;
+        }
+
+        IslandConfig config;
+        try {
+            config = IslandConfig.parse(args);
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.err.println(IslandConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            if (config.id >= 0) {
+                run(config, config.id);
+                return;
+            }
+            // A local launch: islands 1.. as child processes with the same arguments and class path, island 0 here
+            List<Process> children = new ArrayList<>();
+            for (int k = 1; k < config.local; k++) {
+                List<String> command = new ArrayList<>(Arrays.asList(
+                    new File(System.getProperty("java.home"), "bin/java").getPath(),
+                    "-cp", System.getProperty("java.class.path")));
+                if (System.getProperty("instance.cache") != null) {
+                    command.add("-Dinstance.cache=" + System.getProperty("instance.cache"));
+                }
+                command.add(Islands.class.getName());
+                command.addAll(Arrays.asList(args));
+                command.add("id=" + k);
+                children.add(new ProcessBuilder(command).inheritIO().start());
+            }
+            int failed = 0;
+            try {
+                run(config, 0);
+            } finally {
+                for (Process child : children) {
+                    if (child.waitFor() != 0) failed++;
+                }
+            }
+            if (failed > 0) {
+                System.err.println(failed + " islands failed");
+                System.exit(1);
+            }
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+
+    private static void run(IslandConfig config, int id) throws IOException, InterruptedException {
+        BatchConfig colony = config.colony;
+        BatchConfig.Parameters p = colony.grid.get(0);
+        File file = colony.files.get(0);
+        InstanceCache instances = colony.cache != null ? new InstanceCache(colony.cache) : InstanceCache.shared();
+        ProblemInstance instance = instances.get(file.getPath());
+
+        ACO aco = new ACO(instance, new Random(config.seed(id)), p.alpha, p.beta, p.evaporation, p.q);
+        aco.setUpdateRule(p.rule);
+        aco.setLocalSearch(p.localSearch);
+        aco.setTimeLimit(p.timeLimit);
+        ForkJoinPool pool = new ForkJoinPool(colony.threads);
+        long start = System.nanoTime();
+        List<ACO.ResultPerVehicle> best;
+        try (Island island = new Island(instance, p.beta, id, config.addresses, config.topology, config.interval,
+                config.blend, System.out)) {
+            island.start();
+            if (config.waitSeconds > 0 && !island.awaitPeers(config.waitSeconds * 1000L)) {
+                System.out.printf("island %d: not every island is up after %d s, starting anyway%n", id,
+                    config.waitSeconds);
+            }
+            aco.setMigration(island);
+            best = aco.runColony(p.iterations, p.colony, pool);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        double score = 0;
+        double distance = 0;
+        StringBuilder routes = new StringBuilder();
+        for (ACO.ResultPerVehicle vehicle : best) {
+            score += vehicle.score;
+            distance += vehicle.distance;
+            routes.append(' ').append(Arrays.toString(vehicle.route));
+        }
+        System.out.printf(Locale.ROOT, "island %d: %s best score %.2f, distance %.2f after %d iterations in %.1f s:%s%n",
+            id, file.getName(), score, distance, aco.getIterationsRun(), (System.nanoTime() - start) / 1e9, routes);
+    }
+}
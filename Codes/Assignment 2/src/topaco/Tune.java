@@ -0,0 +1,42 @@
+package topaco;
+
+import topaco.batch.BatchConfig;
+import topaco.batch.Tuner;
+
+import java.io.IOException;
+
+// Parameter tuning entry point: races the BatchConfig grid per instance class; see BatchConfig.USAGE
+public class Tune {
+    public static void main(String[] args) {
+        if (args.length > 0 && (args[0].equals("--help") || args[0].equals("-h"))) {
+            System.out.println(BatchConfig.USAGE);
+            return;
+        }
+
+        BatchConfig config;
+        try {
+            config = BatchConfig.parse(args, Tuner.defaults());
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.err.println(BatchConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        System.out.printf("Racing %d parameter sets on %d files, up to %d seeds each, on %d threads%n",
+            config.grid.size(), config.files.size(), config.runs, config.threads);
+
+        long start = System.nanoTime();
+        try {
+            int classes = new Tuner(config, System.out).run();
+            System.out.printf("Tuning complete: %d instance classes in %.1f s, results saved to %s%n",
+                classes, (System.nanoTime() - start) / 1e9, config.output);
+        } catch (IOException e) {
+            System.err.println("Could not write " + config.output + ": " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+    }
+}
@@ -1,39 +1,190 @@
 package topaco.aco;
 
 import java.util.Random;
-import java.util.Set;
 
 import topaco.model.ProblemInstance;
+import topaco.utils.CheckpointFile;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class ACO {
+    // Above this many nodes the default is sparse candidate-list trails instead of n x n tables
+    public static final int DENSE_LIMIT = 2000;
+    public static final int DEFAULT_CANDIDATES = 20;
+    // MAX_MIN convergence test: average lambda-branching factor over the nodes of the best solution, every few
+    // iterations. Only tauMin gives the factor a floor; without it most trails decay towards zero within a few
+    // iterations while the search is still improving.
+    private static final double BRANCHING_LAMBDA = 0.05;
+    private static final int BRANCHING_INTERVAL = 10;
+    private static final double CONVERGED_BRANCHING = 2.1;
+
     private final ProblemInstance instance;
-    private final PheromoneMatrix pheromones;
+    private final PheromoneTrails pheromones;
+    // Only for dense trails; sparse ants take eta^beta from the candidate lists
+    private final HeuristicMatrix heuristics;
     private final Random random;
     private final double alpha;
     private final double beta;
     private final double evaporationRate;
     private final double Q;
 
+    private UpdateRule updateRule = UpdateRule.ANT_SYSTEM;
+    private boolean depositGlobalBest = false;
+    private double q0 = 0.9;
+    private double localEvaporation = 0.1;
+    private int stagnationLimit = 0;
+    private boolean localSearch = false;
+    // Neighbor lists for LocalSearch, shared by the colony; the trails' own lists when they are sparse
+    private CandidateLists localSearchCandidates;
+    private long timeLimitNanos = 0;
+    private double targetScore = Double.POSITIVE_INFINITY;
+    private ImprovementListener listener;
+    private Migration migration;
+    // Per runColony: ants are skipped once the deadline has passed or the run was cancelled, as long as some
+    // solution exists
+    private long deadline;
+    private volatile boolean canSkip;
+    private volatile boolean cancelled;
+    private int iterationsRun;
+    private File checkpointFile;
+    private long checkpointIntervalNanos;
+
     public ACO(ProblemInstance instance, Random random, double alpha, double beta, double evaporationRate, double Q) {
+        this(instance, random, alpha, beta, evaporationRate, Q,
+            instance.getNodeCount() > DENSE_LIMIT ? DEFAULT_CANDIDATES : 0);
+    }
+
+    // candidateListSize 0 keeps a trail for every pair; otherwise only for each node's best candidates
+    public ACO(ProblemInstance instance, Random random, double alpha, double beta, double evaporationRate, double Q,
+               int candidateListSize) {
         this.alpha = alpha;
         this.beta = beta;
         this.evaporationRate = evaporationRate;
         this.Q = Q;
         this.instance = instance;
-        this.pheromones = new PheromoneMatrix(instance.getNodes().size());
+        if (candidateListSize > 0) {
+            this.pheromones = new SparsePheromoneMatrix(new CandidateLists(instance, candidateListSize, beta));
+            this.heuristics = null;
+        } else {
+            this.pheromones = new PheromoneMatrix(instance.getNodeCount());
+            this.heuristics = new HeuristicMatrix(instance, beta);
+        }
         this.random = random;
+        pheromones.updateWeights(alpha);
+    }
+
+    Ant newAnt(Random random) {
+        Ant ant = heuristics == null
+            ? new Ant(instance, (SparsePheromoneMatrix) pheromones, random)
+            : new Ant(instance, (PheromoneMatrix) pheromones, heuristics, random);
+        if (updateRule == UpdateRule.ANT_COLONY_SYSTEM) ant.setQ0(q0);
+        return ant;
+    }
+
+    LocalSearch newLocalSearch() {
+        if (!localSearch) return null;
+        if (localSearchCandidates == null) {
+            localSearchCandidates = heuristics == null
+                ? ((SparsePheromoneMatrix) pheromones).getCandidates()
+                : new CandidateLists(instance, DEFAULT_CANDIDATES, beta);
+        }
+        return new LocalSearch(instance, localSearchCandidates);
+    }
+
+    // The settings below apply to runColony
+    public void setUpdateRule(UpdateRule updateRule) {
+        this.updateRule = updateRule;
+    }
+
+    // MAX_MIN: deposit from the best solution so far instead of the iteration best
+    public void setDepositGlobalBest(boolean depositGlobalBest) {
+        this.depositGlobalBest = depositGlobalBest;
+    }
+
+    // ANT_COLONY_SYSTEM: probability of the greedy choice (default 0.9)
+    public void setQ0(double q0) {
+        this.q0 = q0;
+    }
+
+    // ANT_COLONY_SYSTEM: fraction of the way a used edge moves back towards the initial trail (default 0.1)
+    public void setLocalEvaporation(double localEvaporation) {
+        this.localEvaporation = localEvaporation;
+    }
+
+    // Iterations without a new best before the search counts as stagnant; 0 (the default) never stops early.
+    // MAX_MIN also counts as stagnant once the trails have converged on the best solution. A stagnant MAX_MIN run
+    // resets its trails to tauMax once per improvement, the other rules stop.
+    public void setStagnationLimit(int stagnationLimit) {
+        this.stagnationLimit = stagnationLimit;
+    }
+
+    // Improve every constructed solution with LocalSearch before it is ranked and deposits (default off)
+    public void setLocalSearch(boolean localSearch) {
+        this.localSearch = localSearch;
+    }
+
+    // Anytime limits for runColony, besides its iteration cap: a wall-clock budget (0, the default, is none)
+    // and a score that is good enough to stop at. Construction stops at the deadline as soon as any solution
+    // exists, so a run overshoots by at most one ant construction per worker thread, plus the trail update.
+    // Under a time limit the result depends on timing.
+    public void setTimeLimit(long millis) {
+        this.timeLimitNanos = millis * 1_000_000L;
+    }
+
+    public void setTargetScore(double targetScore) {
+        this.targetScore = targetScore;
+    }
+
+    // Receives every new best solution of runColony, on the solver thread; null for none
+    public void setImprovementListener(ImprovementListener listener) {
+        this.listener = listener;
+    }
+
+    // Exchanges with other colonies after every runColony iteration; null (the default) for a lone colony
+    public void setMigration(Migration migration) {
+        this.migration = migration;
+    }
+
+    // Safe to call from any thread: the run in progress, and any later one, returns its best so far after the
+    // current iteration; runColony also skips the ants it has not started yet
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // runForResult saves its state to file at most every intervalMillis, and once more when it returns, marked
+    // finished once maxIterations are done, from a background thread. A later runForResult on the same problem
+    // with the same parameters and the same random state at the start (a Random with the same seed, say) resumes
+    // an unfinished run from the file and continues exactly where it stopped, up to its own maxIterations. A
+    // finished run is never resumed; it is started afresh and overwrites the file. null turns this off.
+    public void setCheckpoint(File file, long intervalMillis) {
+        this.checkpointFile = file;
+        this.checkpointIntervalNanos = intervalMillis * 1_000_000L;
+    }
+
+    // Iterations the last runColony actually ran
+    public int getIterationsRun() {
+        return iterationsRun;
     }
 
     public static class ResultPerVehicle {
         public final int vehicleIndex;
-        public final List<Integer> route;
+        public final int[] route;
         public final double score;
         public final double distance;
 
-        public ResultPerVehicle(int vehicleIndex, List<Integer> route, double score, double distance) {
+        public ResultPerVehicle(int vehicleIndex, int[] route, double score, double distance) {
             this.vehicleIndex = vehicleIndex;
             this.route = route;
             this.score = score;
@@ -41,49 +192,359 @@ public class ACO {
         }
     }
 
+    // A new best solution of runColony
+    public static class Improvement {
+        // The iteration that found it, counting from 1
+        public final int iteration;
+        // Since runColony started
+        public final long elapsedNanos;
+        public final double score;
+        public final double distance;
+        // One route per vehicle; never modified afterwards
+        public final List<ResultPerVehicle> routes;
+
+        public Improvement(int iteration, long elapsedNanos, double score, double distance, List<ResultPerVehicle> routes) {
+            this.iteration = iteration;
+            this.elapsedNanos = elapsedNanos;
+            this.score = score;
+            this.distance = distance;
+            this.routes = Collections.unmodifiableList(routes);
+        }
+
+        public double getElapsedMillis() {
+            return elapsedNanos / 1e6;
+        }
+    }
+
     public List<ResultPerVehicle> runForResult(int maxIterations) {
     int vehicleCount = instance.getVehicleCount();
     List<ResultPerVehicle> bestResults = new ArrayList<>();
 
-    Set<Integer> visitedGlobal = new HashSet<>();
-
+    boolean[] visitedGlobal = new boolean[instance.getNodeCount()];
+    Random random = this.random;
+    byte[] start = checkpointFile == null ? null : CheckpointFile.randomState(random);
+    int firstIteration = 0;
     for (int v = 0; v < vehicleCount; v++) {
-        bestResults.add(new ResultPerVehicle(v, new ArrayList<>(), 0.0, Double.MAX_VALUE));
+        bestResults.add(new ResultPerVehicle(v, new int[0], 0.0, Double.MAX_VALUE));
+    }
+
+    CheckpointFile checkpoint = checkpointFile == null ? null : new CheckpointFile(checkpointFile);
+    RunCheckpoint resumed = checkpoint == null ? null : resumeCheckpoint(checkpoint, start);
+    if (resumed != null) {
+        pheromones.updateWeights(alpha);
+        System.arraycopy(resumed.visited, 0, visitedGlobal, 0, visitedGlobal.length);
+        bestResults = new ArrayList<>(resumed.best);
+        random = restoreRandom(resumed.random);
+        firstIteration = resumed.iteration;
     }
 
-    for (int iter = 0; iter < maxIterations; iter++) {
-        List<Ant> ants = new ArrayList<>();
+    Ant[] ants = new Ant[vehicleCount];
+    for (int v = 0; v < vehicleCount; v++) {
+        ants[v] = newAnt(random);
+        ants[v].setVehicleIndex(v);
+    }
 
-        for (int i = 0; i < vehicleCount; i++) {
-            Ant ant = new Ant(instance, pheromones, random);
-            ant.setVehicleIndex(i);
-            ant.constructRoute(pheromones.getMatrix(), alpha, beta, visitedGlobal);
-            visitedGlobal.addAll(ant.getVisitedNodes());
-            ants.add(ant);
+    long lastCheckpoint = System.nanoTime();
+    int iter = firstIteration;
+    for (; iter < maxIterations && !cancelled; iter++) {
+        for (Ant ant : ants) {
+            ant.reset();
+            ant.constructRoute(visitedGlobal);
         }
 
         pheromones.evaporate(evaporationRate);
 
         for (Ant ant : ants) {
-            List<Integer> route = ant.getVisitedNodes();
-            double contribution = Q / ant.getTotalDistance();
-            for (int i = 0; i < route.size() - 1; i++) {
-                int from = route.get(i);
-                int to = route.get(i + 1);
-                pheromones.addPheromone(from, to, contribution);
-            }
+            deposit(ant.getRoute(), ant.getRouteLength(), ant.getTotalDistance());
 
             ResultPerVehicle currentBest = bestResults.get(ant.getVehicleIndex());
             // Update best results based on the total score and distance
             if (ant.getTotalScore() > currentBest.score || 
                (ant.getTotalScore() == currentBest.score && ant.getTotalDistance() < currentBest.distance)) {
                 bestResults.set(ant.getVehicleIndex(), 
-                    new ResultPerVehicle(ant.getVehicleIndex(), new ArrayList<>(route), ant.getTotalScore(), ant.getTotalDistance()));
+                    new ResultPerVehicle(ant.getVehicleIndex(), ant.copyRoute(), ant.getTotalScore(), ant.getTotalDistance()));
             }
         }
+        // tau^alpha is read by every construction step, so it is recomputed once here rather than per step
+        pheromones.updateWeights(alpha);
+
+        if (checkpoint != null && System.nanoTime() - lastCheckpoint >= checkpointIntervalNanos) {
+            saveCheckpoint(checkpoint, start, false, iter + 1, visitedGlobal, bestResults, random);
+            lastCheckpoint = System.nanoTime();
+        }
     }
 
+    if (checkpoint != null) {
+        saveCheckpoint(checkpoint, start, iter >= maxIterations, iter, visitedGlobal, bestResults, random);
+        checkpoint.close();
+    }
     return bestResults;
 }
-   
+
+    // Restores the trails from the checkpoint and returns the rest of it; null, after a warning, when the file
+    // holds no unfinished run of this problem with these parameters and this starting random state
+    private RunCheckpoint resumeCheckpoint(CheckpointFile checkpoint, byte[] start) {
+        try (DataInputStream in = checkpoint.open()) {
+            if (in == null) return null;
+            RunCheckpoint resumed = RunCheckpoint.readFrom(in);
+            if (!Arrays.equals(resumed.settings, checkpointSettings()) || !Arrays.equals(resumed.start, start)) {
+                throw new IllegalArgumentException("Other problem, parameters or seed");
+            }
+            if (resumed.finished) {
+                System.err.println("Ignoring checkpoint " + checkpoint.getFile() + ": that run has finished");
+                return null;
+            }
+            pheromones.restoreState(resumed.trails);
+            return resumed;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Ignoring checkpoint " + checkpoint.getFile() + ": other problem, parameters or seed");
+        } catch (IOException e) {
+            System.err.println("Ignoring checkpoint " + checkpoint.getFile() + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static Random restoreRandom(byte[] state) {
+        try {
+            return CheckpointFile.restoreRandom(state);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable random state in checkpoint", e);
+        }
+    }
+
+    // The trails, visited flags and best list are copied here, on the solver thread; the routes themselves are
+    // never changed once they are in a ResultPerVehicle
+    private void saveCheckpoint(CheckpointFile checkpoint, byte[] start, boolean finished, int iteration,
+                                boolean[] visited, List<ResultPerVehicle> best, Random random) {
+        RunCheckpoint state = new RunCheckpoint(checkpointSettings(), start, finished, iteration,
+            pheromones.saveState(), visited.clone(), new ArrayList<>(best), CheckpointFile.randomState(random));
+        checkpoint.save(state::writeTo);
+    }
+
+    private double[] checkpointSettings() {
+        return new double[]{instance.getNodeCount(), instance.getVehicleCount(), instance.getTmax(),
+            instance.contentHash(), alpha, beta, evaporationRate, Q};
+    }
+
+    public List<ResultPerVehicle> runColony(int maxIterations, int colonySize) {
+        return runColony(maxIterations, colonySize, ForkJoinPool.commonPool());
+    }
+
+    // Colony mode: every iteration, colonySize ants each build a full solution (one route per vehicle) from
+    // scratch, in parallel on the pool. Each ant gets its own seed, drawn from the ACO's Random in ant order
+    // before construction starts, and the iteration best is picked by ant index with ties kept by the earlier
+    // ant. The result is therefore the same for a given seed whatever the pool size. Trails are then updated
+    // by the chosen UpdateRule. Returns the routes of the best solution found. Stops at maxIterations, at the
+    // time limit or at the target score, whichever comes first.
+    public List<ResultPerVehicle> runColony(int maxIterations, int colonySize, ForkJoinPool pool) {
+        ColonyAnt[] colony = new ColonyAnt[colonySize];
+        for (int k = 0; k < colonySize; k++) {
+            colony[k] = new ColonyAnt(this, instance.getVehicleCount(), instance.getNodeCount());
+        }
+        long[] seeds = new long[colonySize];
+
+        long start = System.nanoTime();
+        deadline = start + timeLimitNanos;
+        List<ResultPerVehicle> bestResults = new ArrayList<>();
+        double bestScore = -1.0;
+        double bestDistance = Double.MAX_VALUE;
+        int sinceImprovement = 0;
+        boolean improvedSinceRestart = false;
+        double tauMax = 0.0;
+
+        for (iterationsRun = 0; iterationsRun < maxIterations && !shouldStop(); ) {
+            for (int k = 0; k < colonySize; k++) {
+                seeds[k] = random.nextLong();
+            }
+            canSkip = !bestResults.isEmpty();
+            pool.invoke(new ConstructTask(colony, seeds, 0, colonySize));
+            iterationsRun++;
+
+            ColonyAnt iterationBest = null;
+            for (ColonyAnt ant : colony) {
+                if (ant.isBuilt() && (iterationBest == null
+                    || ant.isBetterThan(iterationBest.getTotalScore(), iterationBest.getTotalDistance()))) {
+                    iterationBest = ant;
+                }
+            }
+            // Every ant was skipped
+            if (iterationBest == null) break;
+
+            if (iterationBest.isBetterThan(bestScore, bestDistance)) {
+                bestScore = iterationBest.getTotalScore();
+                bestDistance = iterationBest.getTotalDistance();
+                // A fresh list, since listeners may still hold the previous one
+                bestResults = new ArrayList<>();
+                for (Ant vehicle : iterationBest.getVehicles()) {
+                    bestResults.add(new ResultPerVehicle(vehicle.getVehicleIndex(), vehicle.copyRoute(),
+                        vehicle.getTotalScore(), vehicle.getTotalDistance()));
+                }
+                sinceImprovement = 0;
+                improvedSinceRestart = true;
+                if (listener != null) {
+                    listener.improved(new Improvement(iterationsRun, System.nanoTime() - start, bestScore, bestDistance, bestResults));
+                }
+                if (bestScore >= targetScore) break;
+            } else {
+                sinceImprovement++;
+            }
+
+            switch (updateRule) {
+                case ANT_SYSTEM:
+                    pheromones.evaporate(evaporationRate);
+                    deposit(iterationBest);
+                    break;
+                case MAX_MIN:
+                    // tauMax is where a trail settles when the best solution deposits on it every iteration
+                    double newTauMax = largestDeposit(bestResults) / evaporationRate;
+                    if (newTauMax > 0) {
+                        if (tauMax == 0) pheromones.reset(newTauMax);
+                        tauMax = newTauMax;
+                        pheromones.setBounds(tauMax / (2 * instance.getNodeCount()), tauMax);
+                    }
+                    pheromones.evaporate(evaporationRate);
+                    if (depositGlobalBest) {
+                        for (ResultPerVehicle result : bestResults) {
+                            deposit(result.route, result.route.length, result.distance);
+                        }
+                    } else {
+                        deposit(iterationBest);
+                    }
+                    break;
+                case ANT_COLONY_SYSTEM:
+                    // Applied after construction, in ant order, so parallel runs stay reproducible
+                    double tau0 = pheromones.getInitialPheromone();
+                    for (ColonyAnt ant : colony) {
+                        if (!ant.isBuilt()) continue;
+                        for (Ant vehicle : ant.getVehicles()) {
+                            moveTowards(vehicle.getRoute(), vehicle.getRouteLength(), localEvaporation, tau0);
+                        }
+                    }
+                    for (ResultPerVehicle result : bestResults) {
+                        if (result.distance > 0) {
+                            moveTowards(result.route, result.route.length, evaporationRate, Q / result.distance);
+                        }
+                    }
+                    break;
+            }
+            if (migration != null) {
+                List<ResultPerVehicle> immigrant = migration.migrate(iterationsRun, bestResults, pheromones);
+                double score = 0.0;
+                double distance = 0.0;
+                if (immigrant != null) {
+                    for (ResultPerVehicle result : immigrant) {
+                        score += result.score;
+                        distance += result.distance;
+                    }
+                }
+                // Adopted as the best so far and deposited once, so the colony starts following it
+                if (immigrant != null && (score > bestScore || (score == bestScore && distance < bestDistance))) {
+                    bestScore = score;
+                    bestDistance = distance;
+                    bestResults = immigrant;
+                    sinceImprovement = 0;
+                    improvedSinceRestart = true;
+                    for (ResultPerVehicle result : immigrant) {
+                        deposit(result.route, result.route.length, result.distance);
+                    }
+                    if (listener != null) {
+                        listener.improved(new Improvement(iterationsRun, System.nanoTime() - start, bestScore, bestDistance, bestResults));
+                    }
+                    if (bestScore >= targetScore) break;
+                }
+            }
+            pheromones.updateWeights(alpha);
+
+            if (stagnationLimit > 0 && isStagnant(sinceImprovement, bestResults)) {
+                if (updateRule != UpdateRule.MAX_MIN || !improvedSinceRestart || tauMax == 0) break;
+                pheromones.reset(tauMax);
+                pheromones.updateWeights(alpha);
+                sinceImprovement = 0;
+                improvedSinceRestart = false;
+            }
+        }
+        return bestResults;
+    }
+
+    private boolean shouldStop() {
+        return cancelled || timeLimitNanos > 0 && System.nanoTime() - deadline >= 0;
+    }
+
+    private boolean isStagnant(int sinceImprovement, List<ResultPerVehicle> bestResults) {
+        if (sinceImprovement >= stagnationLimit) return true;
+        if (updateRule != UpdateRule.MAX_MIN || iterationsRun % BRANCHING_INTERVAL != 0) return false;
+
+        // Start depot excluded: it is on every route
+        int nodes = 0;
+        int branches = 0;
+        for (ResultPerVehicle result : bestResults) {
+            for (int node : result.route) {
+                if (node == 0) continue;
+                branches += pheromones.branchingFactor(node, BRANCHING_LAMBDA);
+                nodes++;
+            }
+        }
+        return nodes > 0 && (double) branches / nodes <= CONVERGED_BRANCHING;
+    }
+
+    private double largestDeposit(List<ResultPerVehicle> results) {
+        double largest = 0.0;
+        for (ResultPerVehicle result : results) {
+            if (result.distance > 0) largest = Math.max(largest, Q / result.distance);
+        }
+        return largest;
+    }
+
+    private void deposit(ColonyAnt ant) {
+        for (Ant vehicle : ant.getVehicles()) {
+            deposit(vehicle.getRoute(), vehicle.getRouteLength(), vehicle.getTotalDistance());
+        }
+    }
+
+    // Q / length along the route; a route that never left the depot has no length and leaves no trail
+    private void deposit(int[] route, int length, double distance) {
+        if (distance <= 0) return;
+        double contribution = Q / distance;
+        for (int i = 0; i < length - 1; i++) {
+            pheromones.addPheromone(route[i], route[i + 1], contribution);
+        }
+    }
+
+    private void moveTowards(int[] route, int length, double fraction, double target) {
+        for (int i = 0; i < length - 1; i++) {
+            pheromones.moveTowards(route[i], route[i + 1], fraction, target);
+        }
+    }
+
+    // Splits the colony down to single ants; each leaf writes only to its own ColonyAnt, or skips it past the deadline.
+    // Never serialized; ForkJoinTask is only Serializable for completeness.
+    @SuppressWarnings("serial")
+    private class ConstructTask extends RecursiveAction {
+        private final ColonyAnt[] colony;
+        private final long[] seeds;
+        private final int from;
+        private final int to;
+
+        ConstructTask(ColonyAnt[] colony, long[] seeds, int from, int to) {
+            this.colony = colony;
+            this.seeds = seeds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                if (canSkip && shouldStop()) {
+                    colony[from].skip();
+                } else {
+                    colony[from].construct(seeds[from]);
+                    canSkip = true;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ConstructTask(colony, seeds, from, mid), new ConstructTask(colony, seeds, mid, to));
+        }
+    }
 }
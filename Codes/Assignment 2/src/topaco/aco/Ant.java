@@ -1,106 +1,274 @@
 package topaco.aco;
 
-import topaco.model.Node;
 import topaco.model.ProblemInstance;
-import topaco.utils.DistanceUtil;
+import topaco.utils.ArrayKernels;
+import topaco.utils.PowUtil;
 
 import java.util.*;
 
+// Ants are reused across iterations: every buffer is sized for the instance once and reset() rewinds them.
+// A dense ant scans every node per step; a sparse ant samples its candidate list and only scans all nodes
+// once the list has nothing left.
 public class Ant {
+    private static final ArrayKernels KERNELS = ArrayKernels.INSTANCE;
+
     private final ProblemInstance instance;
-    private final PheromoneMatrix pheromones;
+    // tau^alpha and eta^beta, either n x n row-major (dense) or per candidate slot (sparse)
+    private final double[] tau;
+    private final double[] eta;
+    private final CandidateLists candidateLists;
     private final Random random;
-    private final List<Integer> visitedNodes;
-    private final Set<Integer> visitedSet;
+    private final boolean[] visited;
+    private final int[] route;
+    private int routeLength;
+    // Scratch space for one selection step: open candidates and the running sum of their weights
+    private final int[] candidates;
+    private final double[] cumulative;
+    private int greedy;
+    // Ant Colony System: probability of taking the highest-weight candidate instead of sampling
+    private double q0;
     private int vehicleIndex;
     private double totalDistance;
     private double totalScore;
 
-    public Ant(ProblemInstance instance, PheromoneMatrix pheromones, Random random) {
+    public Ant(ProblemInstance instance, PheromoneMatrix pheromones, HeuristicMatrix heuristics, Random random) {
+        this(instance, pheromones.getWeights(), heuristics.getValues(), null, random);
+    }
+
+    public Ant(ProblemInstance instance, SparsePheromoneMatrix pheromones, Random random) {
+        this(instance, pheromones.getCandidateWeights(), pheromones.getCandidates().getHeuristics(),
+            pheromones.getCandidates(), random);
+    }
+
+    private Ant(ProblemInstance instance, double[] tau, double[] eta, CandidateLists candidateLists, Random random) {
+        int n = instance.getNodeCount();
         this.instance = instance;
-        this.pheromones = pheromones;
+        this.tau = tau;
+        this.eta = eta;
+        this.candidateLists = candidateLists;
         this.random = random;
         this.vehicleIndex = 0;
-        this.visitedNodes = new ArrayList<>();
-        this.visitedSet = new HashSet<>();
+        this.visited = new boolean[n];
+        this.route = new int[n + 1];
+        this.candidates = new int[n];
+        this.cumulative = new double[n];
         this.totalDistance = 0.0;
         this.totalScore = 0.0;
     }
 
-    public void constructRoute(double[][] pheromones, double alpha, double beta, Set<Integer> visitedGlobal) {
-        int n = instance.getNodes().size();
+    public void reset() {
+        for (int i = 0; i < routeLength; i++) {
+            visited[route[i]] = false;
+        }
+        routeLength = 0;
+        totalDistance = 0.0;
+        totalScore = 0.0;
+    }
+
+    // Reads the pheromone matrix's tau^alpha weights, so they must be up to date.
+    // visitedGlobal is shared by the ants of one solution and is marked as nodes are taken.
+    public void constructRoute(boolean[] visitedGlobal) {
         int current = 0; // start at depot
-        visitedNodes.add(current);
-        visitedSet.add(current);
-        visitedGlobal.add(current);
+        route[routeLength++] = current;
+        visited[current] = true;
+        visitedGlobal[current] = true;
 
         while (true) {
-            int next = selectNextNode(current, pheromones, alpha, beta, visitedGlobal);
+            int next = selectNextNode(current, visitedGlobal);
             if (next == -1) break;
-            double dist = DistanceUtil.euclidean(instance.getNode(current), instance.getNode(next));
+            double dist = instance.getDistance(current, next);
             if (totalDistance + dist + getReturnDistance(next) > instance.getTmax()) break;
     
             totalDistance += dist;
-            totalScore += instance.getNode(next).getScore();
+            totalScore += instance.getScore(next);
     
-            visitedNodes.add(next);
-            visitedSet.add(next);
-            visitedGlobal.add(next);
+            route[routeLength++] = next;
+            visited[next] = true;
+            visitedGlobal[next] = true;
     
             current = next;
         }
     
         totalDistance += getReturnDistance(current);
-        visitedNodes.add(0);
+        route[routeLength++] = 0;
     }
 
     private double getReturnDistance(int from) {
-        return DistanceUtil.euclidean(instance.getNode(from), instance.getNode(0));
+        return instance.getDistance(from, 0);
+    }
+
+    int selectNextNode(int current, boolean[] visitedGlobal) {
+        if (candidateLists == null) return selectFromAll(current, visitedGlobal);
+        int next = selectFromCandidates(current, visitedGlobal);
+        return next != -1 ? next : selectByHeuristic(current, visitedGlobal);
     }
 
-    private int selectNextNode(int current, double[][] pheromones, double alpha, double beta, Set<Integer> visitedGlobal) {
-        List<Integer> candidates = new ArrayList<>();
-        for (int i = 1; i < instance.getNodes().size(); i++) {
-            if (!visitedSet.contains(i) && !visitedGlobal.contains(i)) {
-                candidates.add(i);
+    private int selectFromAll(int current, boolean[] visitedGlobal) {
+        if (KERNELS.isVectorized()) return selectFromRow(current, visitedGlobal);
+        int n = instance.getNodeCount();
+        int row = current * n;
+        int count = 0;
+        double sum = 0.0;
+        double greedyWeight = -1.0;
+
+        for (int j = 1; j < n; j++) {
+            if (!visited[j] && !visitedGlobal[j]) {
+                double weight = tau[row + j] * eta[row + j];
+                if (weight > greedyWeight) {
+                    greedyWeight = weight;
+                    greedy = j;
+                }
+                sum += weight;
+                candidates[count] = j;
+                cumulative[count] = sum;
+                count++;
             }
         }
-    
-        if (candidates.isEmpty()) return -1;
-    
-        double[] probabilities = new double[candidates.size()];
-        double sum = 0.0;
-    
-        for (int i = 0; i < candidates.size(); i++) {
-            int j = candidates.get(i);
-            double tau = Math.pow(pheromones[current][j], alpha);
-            double eta = Math.pow(getHeuristic(current, j), beta);
-            probabilities[i] = tau * eta;
-            sum += probabilities[i];
+        return sample(count, sum);
+    }
+
+    // selectFromAll over whole rows: cumulative[j] holds the running sum for node j itself, with closed nodes
+    // adding nothing, so the product and sum loops have no branches and can use the SIMD kernels. The SIMD sums
+    // can differ from selectFromAll's in the last bits, so a seeded run may pick differently where a sample lands
+    // on a boundary.
+    private int selectFromRow(int current, boolean[] visitedGlobal) {
+        int n = instance.getNodeCount();
+        int first = nextOpen(1, visitedGlobal);
+        if (first == -1) return -1;
+
+        KERNELS.maskedProducts(tau, eta, current * n, visited, visitedGlobal, cumulative, 1, n);
+        if (q0 > 0 && random.nextDouble() < q0) {
+            int best = first;
+            for (int j = first + 1; j < n; j++) {
+                if (cumulative[j] > cumulative[best] && !visited[j] && !visitedGlobal[j]) best = j;
+            }
+            return best;
         }
-    
+        // Drawn even when nothing has weight, as sample does, so both paths use the same random numbers
+        double sum = KERNELS.prefixSum(cumulative, 1, n);
         double rand = random.nextDouble() * sum;
-        double cumulative = 0.0;
-        for (int i = 0; i < candidates.size(); i++) {
-            cumulative += probabilities[i];
-            if (rand <= cumulative) {
-                return candidates.get(i);
+        if (!(sum > 0)) return first;
+
+        int lo = 1;
+        int hi = n - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (rand <= cumulative[mid]) hi = mid;
+            else lo = mid + 1;
+        }
+        // Only a zero sample or rounding in the sums can land on a closed node
+        if (visited[lo] || visitedGlobal[lo]) {
+            int open = nextOpen(lo, visitedGlobal);
+            if (open == -1) {
+                while (visited[lo] || visitedGlobal[lo]) lo--;
+                open = lo;
             }
+            lo = open;
         }
-    
-        return candidates.get(candidates.size() - 1);
+        return lo;
     }
-    
 
-    private double getHeuristic(int from, int to) {
-        Node node = instance.getNode(to);
-        double score = node.getScore();
-        double cost = DistanceUtil.euclidean(instance.getNode(from), node);
-        return score / cost;
+    private int nextOpen(int from, boolean[] visitedGlobal) {
+        for (int j = from; j < visited.length; j++) {
+            if (!visited[j] && !visitedGlobal[j]) return j;
+        }
+        return -1;
     }
 
-    public List<Integer> getVisitedNodes() {
-        return visitedNodes;
+    private int selectFromCandidates(int current, boolean[] visitedGlobal) {
+        int k = candidateLists.getK();
+        int[] nodes = candidateLists.getNodes();
+        int base = current * k;
+        int count = 0;
+        double sum = 0.0;
+        double greedyWeight = -1.0;
+
+        for (int slot = base; slot < base + k; slot++) {
+            int j = nodes[slot];
+            if (j < 0) break;
+            if (!visited[j] && !visitedGlobal[j]) {
+                double weight = tau[slot] * eta[slot];
+                if (weight > greedyWeight) {
+                    greedyWeight = weight;
+                    greedy = j;
+                }
+                sum += weight;
+                candidates[count] = j;
+                cumulative[count] = sum;
+                count++;
+            }
+        }
+        return sample(count, sum);
+    }
+
+    // Fallback once the candidate list is used up. Edges outside the lists all carry the same default trail,
+    // so only eta^beta is left to choose by.
+    private int selectByHeuristic(int current, boolean[] visitedGlobal) {
+        int n = instance.getNodeCount();
+        double beta = candidateLists.getBeta();
+        int count = 0;
+        double sum = 0.0;
+        double greedyWeight = -1.0;
+
+        for (int j = 1; j < n; j++) {
+            if (!visited[j] && !visitedGlobal[j]) {
+                int score = instance.getScore(j);
+                double weight = score == 0 ? 0.0 : PowUtil.pow(score / instance.getDistance(current, j), beta);
+                if (weight > greedyWeight) {
+                    greedyWeight = weight;
+                    greedy = j;
+                }
+                sum += weight;
+                candidates[count] = j;
+                cumulative[count] = sum;
+                count++;
+            }
+        }
+        return sample(count, sum);
+    }
+
+    // With probability q0 the highest-weight candidate, otherwise a roulette wheel over the first count candidates:
+    // the first whose running sum reaches the sample. The sums never decrease, so binary search finds it.
+    private int sample(int count, double sum) {
+        if (count == 0) return -1;
+        if (q0 > 0 && random.nextDouble() < q0) return greedy;
+
+        double rand = random.nextDouble() * sum;
+        int lo = 0;
+        int hi = count - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (rand <= cumulative[mid]) hi = mid;
+            else lo = mid + 1;
+        }
+        return candidates[lo];
+    }
+
+    // Replaces the route with route[0, length), e.g. after LocalSearch, keeping the ant's own visited set in step
+    void setRoute(int[] route, int length, double distance, double score) {
+        for (int i = 0; i < routeLength; i++) {
+            visited[this.route[i]] = false;
+        }
+        System.arraycopy(route, 0, this.route, 0, length);
+        for (int i = 0; i < length; i++) {
+            visited[route[i]] = true;
+        }
+        routeLength = length;
+        totalDistance = distance;
+        totalScore = score;
+    }
+
+    // The live route buffer, valid up to getRouteLength(); copy it before the ant is reset
+    public int[] getRoute() {
+        return route;
+    }
+
+    public int getRouteLength() {
+        return routeLength;
+    }
+
+    public int[] copyRoute() {
+        return Arrays.copyOf(route, routeLength);
     }
 
     public double getTotalScore() {
@@ -118,5 +286,9 @@ public class Ant {
     public void setVehicleIndex(int vehicleIndex) {
         this.vehicleIndex = vehicleIndex;
     }
+
+    public void setQ0(double q0) {
+        this.q0 = q0;
+    }
     
 }
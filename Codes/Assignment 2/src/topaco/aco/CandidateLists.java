@@ -0,0 +1,84 @@
+package topaco.aco;
+
+import topaco.model.ProblemInstance;
+import topaco.utils.PowUtil;
+import topaco.utils.SpatialGrid;
+
+// For every node, the k customers with the best score / distance among its POOL_FACTOR * k nearest
+// neighbors, best first, together with their eta^beta. Stored flat as node * k + slot; unused slots hold -1.
+public class CandidateLists {
+    private static final int POOL_FACTOR = 3;
+
+    private final int size;
+    private final int k;
+    private final double beta;
+    private final int[] nodes;
+    private final double[] heuristics;
+
+    public CandidateLists(ProblemInstance instance, int k, double beta) {
+        this.size = instance.getNodeCount();
+        this.k = Math.max(1, Math.min(k, size - 1));
+        this.beta = beta;
+        this.nodes = new int[size * this.k];
+        this.heuristics = new double[size * this.k];
+
+        SpatialGrid grid = new SpatialGrid(instance.getXs(), instance.getYs());
+        double[] eta = new double[this.k];
+        for (int from = 0; from < size; from++) {
+            int base = from * this.k;
+            int count = 0;
+            for (int to : grid.nearest(from, POOL_FACTOR * this.k)) {
+                // The start depot is never a destination and zero-score nodes have no attraction
+                if (to == 0 || instance.getScore(to) == 0) continue;
+                double value = instance.getScore(to) / instance.getDistance(from, to);
+                if (count == this.k && value <= eta[count - 1]) continue;
+
+                int pos = count == this.k ? count - 1 : count++;
+                while (pos > 0 && eta[pos - 1] < value) {
+                    eta[pos] = eta[pos - 1];
+                    nodes[base + pos] = nodes[base + pos - 1];
+                    pos--;
+                }
+                eta[pos] = value;
+                nodes[base + pos] = to;
+            }
+            for (int slot = 0; slot < this.k; slot++) {
+                heuristics[base + slot] = slot < count ? PowUtil.pow(eta[slot], beta) : 0.0;
+                if (slot >= count) nodes[base + slot] = -1;
+            }
+        }
+    }
+
+    // Slot of to in the list of from, or -1 when it is not a candidate
+    public int slot(int from, int to) {
+        int base = from * k;
+        for (int slot = 0; slot < k; slot++) {
+            int node = nodes[base + slot];
+            if (node == to) return base + slot;
+            if (node < 0) break;
+        }
+        return -1;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    // Width of every list
+    public int getK() {
+        return k;
+    }
+
+    public double getBeta() {
+        return beta;
+    }
+
+    public int[] getNodes() {
+        return nodes;
+    }
+
+    // eta^beta for every slot, aligned with getNodes()
+    public double[] getHeuristics() {
+        return heuristics;
+    }
+}
@@ -0,0 +1,72 @@
+package topaco.aco;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// One member of the colony: builds a complete solution, one route per vehicle, with its own visited set and
+// its own random stream. Reused across iterations; construct() reseeds it, so its output depends only on the
+// seed and the current pheromone weights.
+class ColonyAnt {
+    private final Ant[] vehicles;
+    private final boolean[] visited;
+    private final Random random;
+    // Null unless the ACO runs local search on every solution
+    private final LocalSearch localSearch;
+    private double totalScore;
+    private double totalDistance;
+    // False when the last iteration skipped this ant because its time ran out
+    private boolean built;
+
+    ColonyAnt(ACO aco, int vehicleCount, int nodeCount) {
+        this.random = new Random();
+        this.visited = new boolean[nodeCount];
+        this.localSearch = aco.newLocalSearch();
+        this.vehicles = new Ant[vehicleCount];
+        for (int v = 0; v < vehicles.length; v++) {
+            vehicles[v] = aco.newAnt(random);
+            vehicles[v].setVehicleIndex(v);
+        }
+    }
+
+    void construct(long seed) {
+        built = true;
+        random.setSeed(seed);
+        Arrays.fill(visited, false);
+        totalScore = 0.0;
+        totalDistance = 0.0;
+        for (Ant vehicle : vehicles) {
+            vehicle.reset();
+            vehicle.constructRoute(visited);
+        }
+        if (localSearch != null) localSearch.improve(vehicles, visited);
+        for (Ant vehicle : vehicles) {
+            totalScore += vehicle.getTotalScore();
+            totalDistance += vehicle.getTotalDistance();
+        }
+    }
+
+    void skip() {
+        built = false;
+    }
+
+    boolean isBuilt() {
+        return built;
+    }
+
+    // Higher total score wins, then shorter total distance; a skipped ant never wins
+    boolean isBetterThan(double score, double distance) {
+        return built && (totalScore > score || (totalScore == score && totalDistance < distance));
+    }
+
+    Ant[] getVehicles() {
+        return vehicles;
+    }
+
+    double getTotalScore() {
+        return totalScore;
+    }
+
+    double getTotalDistance() {
+        return totalDistance;
+    }
+}
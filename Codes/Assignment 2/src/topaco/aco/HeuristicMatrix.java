@@ -0,0 +1,38 @@
+package topaco.aco;
+
+import topaco.model.ProblemInstance;
+import topaco.utils.PowUtil;
+
+// eta^beta for every pair, where eta = score(to) / distance(from, to). Coordinates, scores and beta are fixed
+// for a run, so the table is built once per instance and parameter set.
+public class HeuristicMatrix {
+    private final int size;
+    private final double[] values;
+
+    public HeuristicMatrix(ProblemInstance instance, double beta) {
+        this.size = instance.getNodeCount();
+        this.values = new double[size * size];
+
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                int score = instance.getScore(to);
+                // A zero score has no attraction, even for a node at the same spot (0 / 0)
+                double eta = score == 0 ? 0.0 : score / instance.getDistance(from, to);
+                values[from * size + to] = PowUtil.pow(eta, beta);
+            }
+        }
+    }
+
+    public double get(int from, int to) {
+        return values[from * size + to];
+    }
+
+    // Row-major table indexed from * getSize() + to
+    public double[] getValues() {
+        return values;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,7 @@
+package topaco.aco;
+
+// Told about every new best solution of ACO.runColony. Called on the solver thread between iterations, so an
+// implementation must return quickly and never block; ImprovementQueue hands events to another thread.
+public interface ImprovementListener {
+    void improved(ACO.Improvement improvement);
+}
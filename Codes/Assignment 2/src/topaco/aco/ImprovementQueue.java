@@ -0,0 +1,36 @@
+package topaco.aco;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Lock-free hand-off of improvement events: the solver only appends, any other thread drains the events or
+// just reads the latest one.
+public class ImprovementQueue implements ImprovementListener {
+    private final ConcurrentLinkedQueue<ACO.Improvement> events = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<ACO.Improvement> latest = new AtomicReference<>();
+
+    @Override
+    public void improved(ACO.Improvement improvement) {
+        events.offer(improvement);
+        latest.set(improvement);
+    }
+
+    // The oldest event not yet taken, or null
+    public ACO.Improvement poll() {
+        return events.poll();
+    }
+
+    public int drainTo(Collection<? super ACO.Improvement> target) {
+        int count = 0;
+        for (ACO.Improvement event; (event = events.poll()) != null; count++) {
+            target.add(event);
+        }
+        return count;
+    }
+
+    // The best solution published so far, or null; not affected by poll or drainTo
+    public ACO.Improvement latest() {
+        return latest.get();
+    }
+}
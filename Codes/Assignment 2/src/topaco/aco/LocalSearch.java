@@ -0,0 +1,378 @@
+package topaco.aco;
+
+import topaco.model.ProblemInstance;
+
+import java.util.Arrays;
+
+// Improves a constructed solution in place: 2-opt and Or-opt inside each route, node swaps and relocations
+// between vehicles, then greedy insertion of unvisited nodes into the distance freed by the first two.
+// Moves are only tried between a node and its candidate-list neighbors, and every move is priced from the
+// handful of edges it changes, so checking it against tmax is O(1); only an accepted move touches the routes.
+public class LocalSearch {
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_SEGMENT = 3;
+
+    private final ProblemInstance instance;
+    private final int k;
+    private final int[] neighbors;
+    // A little below tmax, so rounding in the summed deltas can never push a route over it
+    private final double limit;
+
+    // The solution being improved: each route starts and ends at the depot
+    private int[][] routes = new int[0][];
+    private int[] lengths = new int[0];
+    private double[] distances = new double[0];
+    private double[] scores = new double[0];
+    private int vehicleCount;
+    private boolean[] visited;
+    // Vehicle and route position of every customer on a route, -1 otherwise; the depot is on every route
+    // and always -1. Reset after every improve().
+    private final int[] vehicleOf;
+    private final int[] positionOf;
+    private final int[] segment = new int[MAX_SEGMENT];
+
+    // Best insertion per vehicle, valid until that vehicle's route changes or its node is taken
+    private int[] insertNode = new int[0];
+    private int[] insertEdge = new int[0];
+    private double[] insertAdded = new double[0];
+    private double[] insertRatio = new double[0];
+
+    public LocalSearch(ProblemInstance instance, CandidateLists candidateLists) {
+        this.instance = instance;
+        this.k = candidateLists.getK();
+        this.neighbors = candidateLists.getNodes();
+        this.limit = instance.getTmax() - EPSILON;
+        this.vehicleOf = new int[instance.getNodeCount()];
+        this.positionOf = new int[instance.getNodeCount()];
+        Arrays.fill(vehicleOf, -1);
+    }
+
+    // visitedGlobal holds every node on the vehicles' routes and is marked as nodes are inserted
+    public void improve(Ant[] vehicles, boolean[] visitedGlobal) {
+        load(vehicles);
+        visited = visitedGlobal;
+
+        boolean improved = true;
+        while (improved) {
+            for (int v = 0; v < vehicleCount; v++) {
+                while (twoOpt(v) | orOpt(v)) {
+                    // until neither move finds anything
+                }
+            }
+            improved = exchange();
+            improved |= insert();
+        }
+
+        for (int v = 0; v < vehicleCount; v++) {
+            // Drop the rounding the deltas accumulated
+            distances[v] = routeDistance(routes[v], lengths[v]);
+            vehicles[v].setRoute(routes[v], lengths[v], distances[v], scores[v]);
+            for (int i = 1; i < lengths[v] - 1; i++) {
+                vehicleOf[routes[v][i]] = -1;
+            }
+        }
+        visited = null;
+    }
+
+    private void load(Ant[] vehicles) {
+        vehicleCount = vehicles.length;
+        if (routes.length < vehicleCount) {
+            routes = Arrays.copyOf(routes, vehicleCount);
+            lengths = new int[vehicleCount];
+            distances = new double[vehicleCount];
+            scores = new double[vehicleCount];
+            insertNode = new int[vehicleCount];
+            insertEdge = new int[vehicleCount];
+            insertAdded = new double[vehicleCount];
+            insertRatio = new double[vehicleCount];
+        }
+        for (int v = 0; v < vehicleCount; v++) {
+            Ant ant = vehicles[v];
+            routes[v] = ensureCapacity(routes[v], ant.getRouteLength());
+            System.arraycopy(ant.getRoute(), 0, routes[v], 0, ant.getRouteLength());
+            lengths[v] = ant.getRouteLength();
+            distances[v] = ant.getTotalDistance();
+            scores[v] = ant.getTotalScore();
+            index(v, 1, lengths[v] - 2);
+        }
+    }
+
+    // ===================================================== INTRA-ROUTE =====================================================
+
+    // For each route edge (a, b), tries to make a adjacent to one of its neighbors c on the same route by
+    // reversing the path in between. Shorter routes never break tmax.
+    private boolean twoOpt(int v) {
+        int[] route = routes[v];
+        boolean improved = false;
+        for (int i = 0; i < lengths[v] - 1; i++) {
+            int a = route[i];
+            for (int slot = a * k; slot < (a + 1) * k && neighbors[slot] >= 0; slot++) {
+                int c = neighbors[slot];
+                int b = route[i + 1];
+                if (vehicleOf[c] != v || dist(a, c) >= dist(a, b)) continue;
+
+                int j = positionOf[c];
+                double delta;
+                if (j > i + 1) {
+                    // a b ... c d  ->  a c ... b d
+                    int d = route[j + 1];
+                    delta = dist(a, c) + dist(b, d) - dist(a, b) - dist(c, d);
+                    if (delta >= -EPSILON) continue;
+                    reverse(v, i + 1, j);
+                } else if (j < i - 1) {
+                    // c e ... a b  ->  c a ... e b
+                    int e = route[j + 1];
+                    delta = dist(c, a) + dist(e, b) - dist(c, e) - dist(a, b);
+                    if (delta >= -EPSILON) continue;
+                    reverse(v, j + 1, i);
+                } else {
+                    continue;
+                }
+                distances[v] += delta;
+                improved = true;
+                // The edge at i has changed, the next pass looks at it again
+                break;
+            }
+        }
+        return improved;
+    }
+
+    // Moves a segment of up to MAX_SEGMENT nodes, in either orientation, next to a neighbor of one of its ends
+    private boolean orOpt(int v) {
+        int[] route = routes[v];
+        boolean improved = false;
+        for (int length = 1; length <= MAX_SEGMENT; length++) {
+            for (int i = 1; i + length < lengths[v]; i++) {
+                if (moveSegment(v, route, i, length)) improved = true;
+            }
+        }
+        return improved;
+    }
+
+    private boolean moveSegment(int v, int[] route, int i, int length) {
+        int p = route[i - 1], first = route[i], last = route[i + length - 1], n = route[i + length];
+        double removed = dist(p, first) + dist(last, n) - dist(p, n);
+        if (removed <= EPSILON) return false;
+
+        for (int end = 0; end < 2; end++) {
+            int anchor = end == 0 ? first : last;
+            for (int slot = anchor * k; slot < (anchor + 1) * k && neighbors[slot] >= 0; slot++) {
+                int c = neighbors[slot];
+                if (vehicleOf[c] != v) continue;
+                for (int j = positionOf[c] - 1; j <= positionOf[c]; j++) {
+                    if (j >= i - 1 && j < i + length) continue;
+                    int x = route[j], y = route[j + 1];
+                    double forward = dist(x, first) + dist(last, y) - dist(x, y);
+                    double reversed = dist(x, last) + dist(first, y) - dist(x, y);
+                    double added = Math.min(forward, reversed);
+                    if (added - removed < -EPSILON) {
+                        relocateSegment(v, i, length, j, reversed < forward);
+                        distances[v] += added - removed;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Puts route[i, i + length) between positions j and j + 1 (j outside the segment); only the nodes in
+    // between shift
+    private void relocateSegment(int v, int i, int length, int j, boolean reverse) {
+        int[] route = routes[v];
+        for (int s = 0; s < length; s++) {
+            segment[s] = route[reverse ? i + length - 1 - s : i + s];
+        }
+        if (j < i) {
+            System.arraycopy(route, j + 1, route, j + 1 + length, i - j - 1);
+            System.arraycopy(segment, 0, route, j + 1, length);
+            index(v, j + 1, i + length - 1);
+        } else {
+            System.arraycopy(route, i + length, route, i, j - i - length + 1);
+            System.arraycopy(segment, 0, route, j - length + 1, length);
+            index(v, i, j);
+        }
+    }
+
+    // ===================================================== INTER-ROUTE =====================================================
+
+    // Relocates a node next to a neighbor on another vehicle, or swaps the two, when the total distance drops
+    // and both routes still fit
+    private boolean exchange() {
+        boolean improved = false;
+        for (int a = 0; a < vehicleCount; a++) {
+            for (int i = 1; i < lengths[a] - 1; i++) {
+                int u = routes[a][i];
+                for (int slot = u * k; slot < (u + 1) * k && neighbors[slot] >= 0; slot++) {
+                    int w = neighbors[slot];
+                    int b = vehicleOf[w];
+                    if (b < 0 || b == a) continue;
+                    if (relocate(a, i, b, positionOf[w]) || swap(a, i, b, positionOf[w])) {
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return improved;
+    }
+
+    // Moves routes[a][i] to either side of routes[b][j]
+    private boolean relocate(int a, int i, int b, int j) {
+        int[] routeA = routes[a], routeB = routes[b];
+        int u = routeA[i];
+        double removed = dist(routeA[i - 1], u) + dist(u, routeA[i + 1]) - dist(routeA[i - 1], routeA[i + 1]);
+        for (int edge = j - 1; edge <= j; edge++) {
+            int x = routeB[edge], y = routeB[edge + 1];
+            double added = dist(x, u) + dist(u, y) - dist(x, y);
+            if (added - removed < -EPSILON && distances[b] + added <= limit) {
+                removeAt(a, i);
+                distances[a] -= removed;
+                scores[a] -= instance.getScore(u);
+                insertAt(b, edge, u);
+                distances[b] += added;
+                scores[b] += instance.getScore(u);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean swap(int a, int i, int b, int j) {
+        int[] routeA = routes[a], routeB = routes[b];
+        int u = routeA[i], w = routeB[j];
+        double deltaA = replaceCost(routeA, i, w);
+        double deltaB = replaceCost(routeB, j, u);
+        if (deltaA + deltaB >= -EPSILON || distances[a] + deltaA > limit || distances[b] + deltaB > limit) return false;
+
+        routeA[i] = w;
+        routeB[j] = u;
+        index(a, i, i);
+        index(b, j, j);
+        distances[a] += deltaA;
+        distances[b] += deltaB;
+        scores[a] += instance.getScore(w) - instance.getScore(u);
+        scores[b] += instance.getScore(u) - instance.getScore(w);
+        return true;
+    }
+
+    // Distance change of putting node in place of route[i]
+    private double replaceCost(int[] route, int i, int node) {
+        int p = route[i - 1], n = route[i + 1], old = route[i];
+        return dist(p, node) + dist(node, n) - dist(p, old) - dist(old, n);
+    }
+
+    // ====================================================== INSERTION ======================================================
+
+    // Repeatedly inserts the unvisited node with the best score per unit of added distance at the cheapest
+    // edge next to one of its neighbors, in any vehicle with the slack for it. An insertion only changes one
+    // route, so only that vehicle is rescanned, plus any vehicle whose best was the node just taken.
+    private boolean insert() {
+        for (int v = 0; v < vehicleCount; v++) {
+            scanInsertions(v);
+        }
+        boolean inserted = false;
+        while (true) {
+            int best = -1;
+            for (int v = 0; v < vehicleCount; v++) {
+                if (insertNode[v] >= 0 && (best < 0 || insertRatio[v] > insertRatio[best])) best = v;
+            }
+            if (best < 0) return inserted;
+
+            int node = insertNode[best];
+            insertAt(best, insertEdge[best], node);
+            distances[best] += insertAdded[best];
+            scores[best] += instance.getScore(node);
+            visited[node] = true;
+            inserted = true;
+
+            for (int v = 0; v < vehicleCount; v++) {
+                if (v == best || insertNode[v] == node) scanInsertions(v);
+            }
+        }
+    }
+
+    private void scanInsertions(int v) {
+        int[] route = routes[v];
+        insertNode[v] = -1;
+        insertRatio[v] = 0.0;
+        for (int j = 0; j < lengths[v] - 1; j++) {
+            int x = route[j];
+            for (int slot = x * k; slot < (x + 1) * k && neighbors[slot] >= 0; slot++) {
+                int node = neighbors[slot];
+                if (visited[node]) continue;
+                offerInsertion(v, node, j);
+                if (j > 0) offerInsertion(v, node, j - 1);
+            }
+        }
+    }
+
+    private void offerInsertion(int v, int node, int edge) {
+        int x = routes[v][edge], y = routes[v][edge + 1];
+        double added = dist(x, node) + dist(node, y) - dist(x, y);
+        if (distances[v] + added > limit) return;
+        double ratio = instance.getScore(node) / Math.max(added, EPSILON);
+        if (ratio > insertRatio[v]) {
+            insertRatio[v] = ratio;
+            insertNode[v] = node;
+            insertEdge[v] = edge;
+            insertAdded[v] = added;
+        }
+    }
+
+    // ======================================================== ROUTES ========================================================
+
+    // Puts node between positions edge and edge + 1
+    private void insertAt(int v, int edge, int node) {
+        routes[v] = ensureCapacity(routes[v], lengths[v] + 1);
+        int[] route = routes[v];
+        System.arraycopy(route, edge + 1, route, edge + 2, lengths[v] - edge - 1);
+        route[edge + 1] = node;
+        lengths[v]++;
+        index(v, edge + 1, lengths[v] - 2);
+    }
+
+    private void removeAt(int v, int i) {
+        int[] route = routes[v];
+        vehicleOf[route[i]] = -1;
+        System.arraycopy(route, i + 1, route, i, lengths[v] - i - 1);
+        lengths[v]--;
+        index(v, i, lengths[v] - 2);
+    }
+
+    private void reverse(int v, int i, int j) {
+        int[] route = routes[v];
+        for (int lo = i, hi = j; lo < hi; lo++, hi--) {
+            int t = route[lo];
+            route[lo] = route[hi];
+            route[hi] = t;
+        }
+        index(v, i, j);
+    }
+
+    // Refreshes vehicleOf and positionOf for route positions [from, to]; the depot ends are skipped
+    private void index(int v, int from, int to) {
+        int[] route = routes[v];
+        for (int i = Math.max(from, 1); i <= Math.min(to, lengths[v] - 2); i++) {
+            vehicleOf[route[i]] = v;
+            positionOf[route[i]] = i;
+        }
+    }
+
+    private double routeDistance(int[] route, int length) {
+        double total = 0.0;
+        for (int i = 0; i < length - 1; i++) {
+            total += dist(route[i], route[i + 1]);
+        }
+        return total;
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        if (array == null) return new int[Math.max(size, 16)];
+        return array.length >= size ? array : Arrays.copyOf(array, Math.max(size, 2 * array.length));
+    }
+
+    private double dist(int a, int b) {
+        return instance.getDistance(a, b);
+    }
+}
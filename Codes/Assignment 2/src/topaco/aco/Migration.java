@@ -0,0 +1,12 @@
+package topaco.aco;
+
+import java.util.List;
+
+// Exchanges solutions and trails with other colonies between the iterations of ACO.runColony, as in an island
+// model. Called on the solver thread after the trail update of every iteration and before the weights are
+// brought up to date, so it may blend the trails; like ImprovementListener it must not block.
+public interface Migration {
+    // best is the colony's best solution so far. Returns another colony's solution to adopt if it is better, or
+    // null.
+    List<ACO.ResultPerVehicle> migrate(int iteration, List<ACO.ResultPerVehicle> best, PheromoneTrails trails);
+}
@@ -1,41 +1,235 @@
 package topaco.aco;
 
-public class PheromoneMatrix {
-    private final double[][] pheromones;
+import topaco.utils.ArrayKernels;
+import topaco.utils.PowUtil;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Symmetric trails stored as the upper triangle (diagonal included) of one flat array, times a global scale:
+// tau(i, j) = scale * trails[index(i, j)]. Evaporation only shrinks the scale, deposits are divided by it,
+// and the scale is folded back into the trails before it gets anywhere near underflow.
+// addPheromone may be called from several threads at once; evaporate and updateWeights may not overlap it.
+public class PheromoneMatrix implements PheromoneTrails {
+    private static final VarHandle TRAILS = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final double RENORMALIZE_BELOW = 1e-50;
+    // Unbounded weights are stored^alpha, up to tau^alpha / scale^alpha, so updateWeights also renormalizes once
+    // scale^alpha falls below this; that keeps them finite at any alpha. For alpha <= 2 evaporate gets there first.
+    private static final double RENORMALIZE_WEIGHTS_BELOW = 1e-100;
+
+    private final double[] trails;
     private final int size;
     private final double initialPheromone = 0.1;
+    private double scale = 1.0;
+    private double minTrail = 0.0;
+    private double maxTrail = Double.POSITIVE_INFINITY;
+
+    // trails^alpha, as a full row-major matrix so an ant reads one contiguous row per step. Without bounds the
+    // common factor scale^alpha is left out, since it cancels in the selection probabilities.
+    private final double[] weights;
+    private double weightsAlpha = Double.NaN;
+    private boolean allDirty = true;
+    // Edges (i * size + j) changed since the last updateWeights; past capacity everything is redone
+    private final int[] dirty;
+    private final AtomicInteger dirtyCount = new AtomicInteger();
 
     public PheromoneMatrix(int size) {
         this.size = size;
-        pheromones = new double[size][size];
-        initialize();
+        trails = new double[size * (size + 1) / 2];
+        weights = new double[size * size];
+        dirty = new int[4 * size + 16];
+        reset(initialPheromone);
     }
 
-    private void initialize() {
-        for (int i = 0; i < size; i++)
-            for (int j = 0; j < size; j++)
-                pheromones[i][j] = initialPheromone;
+    private int index(int i, int j) {
+        if (i > j) {
+            int t = i;
+            i = j;
+            j = t;
+        }
+        return (int) ((long) i * size - (long) i * (i - 1) / 2 + (j - i));
     }
 
+    @Override
     public double get(int i, int j) {
-        return pheromones[i][j];
+        return bound(scale * trails[index(i, j)]);
     }
 
-    public double[][] getMatrix() {
-        return pheromones;
+    private double bound(double tau) {
+        return Math.max(minTrail, Math.min(maxTrail, tau));
     }
 
+    private boolean isBounded() {
+        return minTrail > 0 || maxTrail < Double.POSITIVE_INFINITY;
+    }
+
+    @Override
     public void evaporate(double evaporationRate) {
-        for (int i = 0; i < size; i++)
-            for (int j = 0; j < size; j++)
-                pheromones[i][j] *= (1 - evaporationRate);
+        scale *= (1 - evaporationRate);
+        if (scale < RENORMALIZE_BELOW) renormalize();
+    }
+
+    private void renormalize() {
+        ArrayKernels.INSTANCE.multiply(trails, scale);
+        scale = 1.0;
+        allDirty = true;
     }
 
+    @Override
     public void addPheromone(int i, int j, double amount) {
-        pheromones[i][j] += amount;
-        pheromones[j][i] += amount;
+        int k = index(i, j);
+        double stored = amount / scale;
+        double current;
+        do {
+            current = (double) TRAILS.getVolatile(trails, k);
+        } while (!TRAILS.compareAndSet(trails, k, current, current + stored));
+        markDirty(i, j);
+    }
+
+    @Override
+    public void moveTowards(int i, int j, double fraction, double target) {
+        int k = index(i, j);
+        trails[k] = ((1 - fraction) * scale * trails[k] + fraction * target) / scale;
+        markDirty(i, j);
+    }
+
+    private void markDirty(int i, int j) {
+        int slot = dirtyCount.getAndIncrement();
+        if (slot < dirty.length) dirty[slot] = i * size + j;
+    }
+
+    @Override
+    public void setBounds(double min, double max) {
+        minTrail = min;
+        maxTrail = max;
+        allDirty = true;
+    }
+
+    @Override
+    public void reset(double value) {
+        for (int k = 0; k < trails.length; k++)
+            trails[k] = value;
+        scale = 1.0;
+        allDirty = true;
+    }
+
+    // The trails followed by scale and the bounds
+    @Override
+    public double[] saveState() {
+        double[] state = Arrays.copyOf(trails, trails.length + 3);
+        state[trails.length] = scale;
+        state[trails.length + 1] = minTrail;
+        state[trails.length + 2] = maxTrail;
+        return state;
+    }
+
+    @Override
+    public void restoreState(double[] state) {
+        if (state.length != trails.length + 3) throw new IllegalArgumentException("Trail state of another size");
+        System.arraycopy(state, 0, trails, 0, trails.length);
+        scale = state[trails.length];
+        minTrail = state[trails.length + 1];
+        maxTrail = state[trails.length + 2];
+        dirtyCount.set(0);
+        allDirty = true;
+    }
+
+    @Override
+    public void blend(double[] state, double fraction) {
+        if (state.length != trails.length + 3) throw new IllegalArgumentException("Trail state of another size");
+        // Both sides in this store's scale; a state that would leave a trail negative or not finite is refused whole
+        double keep = 1 - fraction;
+        double other = fraction * state[trails.length] / scale;
+        if (!(state[trails.length] > 0) || !Double.isFinite(other)) {
+            throw new IllegalArgumentException("Bad trail scale " + state[trails.length]);
+        }
+        for (int k = 0; k < trails.length; k++) {
+            if (!(state[k] >= 0) || !Double.isFinite(other * state[k])) {
+                throw new IllegalArgumentException("Bad trail " + state[k]);
+            }
+        }
+        for (int k = 0; k < trails.length; k++) {
+            trails[k] = keep * trails[k] + other * state[k];
+        }
+        allDirty = true;
+    }
+
+    // Brings tau^alpha up to date: only the changed edges, unless alpha changed, the trails were renormalized or
+    // reset, or bounds are set. Bounded trails drift below tauMin as they evaporate, so they are clamped and
+    // reweighted in full every time.
+    @Override
+    public void updateWeights(double alpha) {
+        int count = dirtyCount.getAndSet(0);
+        if (isBounded()) {
+            for (int i = 0; i < size; i++) {
+                for (int j = i; j < size; j++) {
+                    int k = index(i, j);
+                    double tau = bound(scale * trails[k]);
+                    trails[k] = tau / scale;
+                    setWeight(i, j, PowUtil.pow(tau, alpha));
+                }
+            }
+            weightsAlpha = alpha;
+            allDirty = true;
+            return;
+        }
+        if (PowUtil.pow(scale, alpha) < RENORMALIZE_WEIGHTS_BELOW) renormalize();
+        if (allDirty || alpha != weightsAlpha || count > dirty.length) {
+            for (int i = 0; i < size; i++)
+                for (int j = i; j < size; j++)
+                    setWeight(i, j, PowUtil.pow(trails[index(i, j)], alpha));
+            weightsAlpha = alpha;
+            allDirty = false;
+            return;
+        }
+        for (int k = 0; k < count; k++) {
+            int i = dirty[k] / size;
+            int j = dirty[k] % size;
+            setWeight(i, j, PowUtil.pow(trails[index(i, j)], alpha));
+        }
+    }
+
+    private void setWeight(int i, int j, double weight) {
+        weights[i * size + j] = weight;
+        weights[j * size + i] = weight;
+    }
+
+    @Override
+    public double getWeight(int i, int j) {
+        return weights[i * size + j];
+    }
+
+    // Row-major table indexed i * getSize() + j, proportional to tau^alpha
+    public double[] getWeights() {
+        return weights;
+    }
+
+    @Override
+    public int branchingFactor(int node, double lambda) {
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (int j = 0; j < size; j++) {
+            if (j == node) continue;
+            double tau = trails[index(node, j)];
+            min = Math.min(min, tau);
+            max = Math.max(max, tau);
+        }
+        double cutoff = min + lambda * (max - min);
+        int count = 0;
+        for (int j = 0; j < size; j++) {
+            if (j != node && trails[index(node, j)] >= cutoff) count++;
+        }
+        return count;
+    }
+
+    @Override
+    public double getInitialPheromone() {
+        return initialPheromone;
     }
 
+    @Override
     public int getSize() {
         return size;
     }
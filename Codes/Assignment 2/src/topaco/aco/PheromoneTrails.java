@@ -0,0 +1,45 @@
+package topaco.aco;
+
+// Pheromone store used by ACO. Implementations are symmetric, keep tau^alpha weights for the ants that only
+// change in updateWeights, and accept addPheromone from several threads at once.
+public interface PheromoneTrails {
+    double get(int i, int j);
+
+    void evaporate(double evaporationRate);
+
+    void addPheromone(int i, int j, double amount);
+
+    // tau(i, j) = (1 - fraction) * tau(i, j) + fraction * target; not for concurrent use
+    void moveTowards(int i, int j, double fraction, double target);
+
+    // Keeps every trail within [min, max] from the next updateWeights on; (0, infinity) removes the bounds
+    void setBounds(double min, double max);
+
+    // Sets every trail to value
+    void reset(double value);
+
+    void updateWeights(double alpha);
+
+    // Proportional to tau(i, j)^alpha as of the last updateWeights
+    double getWeight(int i, int j);
+
+    // Number of edges at node whose trail is at least min + lambda * (max - min) of that node's trails
+    int branchingFactor(int node, double lambda);
+
+    // A copy of the stored trails for a checkpoint. restoreState takes it back on a store of the same shape;
+    // weights are then stale until the next updateWeights, which recomputes them in full.
+    double[] saveState();
+
+    void restoreState(double[] state);
+
+    // Moves every trail the given fraction of the way towards the trails of another store of the same shape, given
+    // in its saveState form; this store keeps its own bounds. A state of another shape, or one with a scale that is
+    // not positive or trails that are negative or would not stay finite, throws IllegalArgumentException and
+    // changes nothing. Not for concurrent use.
+    void blend(double[] state, double fraction);
+
+    // The trail every edge starts with
+    double getInitialPheromone();
+
+    int getSize();
+}
@@ -0,0 +1,101 @@
+package topaco.aco;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// The state of ACO.runForResult between two iterations. The trails are in the store's saveState form and the
+// Random in its serialized form, so a resumed run draws exactly the numbers the interrupted one would have.
+class RunCheckpoint {
+    private static final int MAGIC = 0x41434F32; // "ACO2"
+
+    // The problem and parameters the state belongs to, and the serialized Random the run started from; it is only
+    // resumed when they all match
+    final double[] settings;
+    final byte[] start;
+    // Written when the run returned after all its iterations; a finished run is not resumed
+    final boolean finished;
+    // Iterations already done
+    final int iteration;
+    final double[] trails;
+    final boolean[] visited;
+    final List<ACO.ResultPerVehicle> best;
+    final byte[] random;
+
+    // Everything passed in must already be a copy the solver no longer changes
+    RunCheckpoint(double[] settings, byte[] start, boolean finished, int iteration, double[] trails, boolean[] visited,
+                  List<ACO.ResultPerVehicle> best, byte[] random) {
+        this.settings = settings;
+        this.start = start;
+        this.finished = finished;
+        this.iteration = iteration;
+        this.trails = trails;
+        this.visited = visited;
+        this.best = best;
+        this.random = random;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        writeDoubles(out, settings);
+        out.writeInt(start.length);
+        out.write(start);
+        out.writeBoolean(finished);
+        out.writeInt(iteration);
+        writeDoubles(out, trails);
+        out.writeInt(visited.length);
+        for (boolean v : visited) out.writeBoolean(v);
+        out.writeInt(best.size());
+        for (ACO.ResultPerVehicle vehicle : best) {
+            out.writeInt(vehicle.vehicleIndex);
+            out.writeInt(vehicle.route.length);
+            for (int node : vehicle.route) out.writeInt(node);
+            out.writeDouble(vehicle.score);
+            out.writeDouble(vehicle.distance);
+        }
+        out.writeInt(random.length);
+        out.write(random);
+    }
+
+    static RunCheckpoint readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not an ACO checkpoint");
+        double[] settings = readDoubles(in);
+        byte[] start = new byte[in.readInt()];
+        in.readFully(start);
+        boolean finished = in.readBoolean();
+        int iteration = in.readInt();
+        double[] trails = readDoubles(in);
+        boolean[] visited = new boolean[in.readInt()];
+        for (int i = 0; i < visited.length; i++) visited[i] = in.readBoolean();
+        int vehicles = in.readInt();
+        List<ACO.ResultPerVehicle> best = new ArrayList<>(vehicles);
+        for (int v = 0; v < vehicles; v++) {
+            int vehicleIndex = in.readInt();
+            int[] route = new int[in.readInt()];
+            for (int k = 0; k < route.length; k++) route[k] = in.readInt();
+            best.add(new ACO.ResultPerVehicle(vehicleIndex, route, in.readDouble(), in.readDouble()));
+        }
+        byte[] random = new byte[in.readInt()];
+        in.readFully(random);
+        return new RunCheckpoint(settings, start, finished, iteration, trails, visited, best, random);
+    }
+
+    // Converted in bulk; same big-endian layout as writeDouble per value
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(8 * values.length);
+        bytes.asDoubleBuffer().put(values);
+        out.writeInt(values.length);
+        out.write(bytes.array());
+    }
+
+    private static double[] readDoubles(DataInputStream in) throws IOException {
+        double[] values = new double[in.readInt()];
+        byte[] bytes = new byte[8 * values.length];
+        in.readFully(bytes);
+        ByteBuffer.wrap(bytes).asDoubleBuffer().get(values);
+        return values;
+    }
+}
@@ -0,0 +1,243 @@
+package topaco.aco;
+
+import topaco.utils.ArrayKernels;
+import topaco.utils.PowUtil;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Trails only for candidate-list edges: one value per slot of CandidateLists, so O(nk) memory. An edge that is
+// in both endpoints' lists is kept in both slots and they are updated together; every other edge shares one
+// default trail. Evaporation uses the same global scale as PheromoneMatrix.
+public class SparsePheromoneMatrix implements PheromoneTrails {
+    private static final VarHandle TRAILS = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final double RENORMALIZE_BELOW = 1e-50;
+    private static final double RENORMALIZE_WEIGHTS_BELOW = 1e-100;
+
+    private final CandidateLists candidates;
+    private final double[] trails;
+    private final double initialPheromone = 0.1;
+    private double outside = initialPheromone;
+    private double scale = 1.0;
+    private double minTrail = 0.0;
+    private double maxTrail = Double.POSITIVE_INFINITY;
+
+    // trails^alpha per slot, without the common scale^alpha factor
+    private final double[] weights;
+    private double outsideWeight;
+    private double weightsAlpha = Double.NaN;
+    private boolean allDirty = true;
+    private final int[] dirty;
+    private final AtomicInteger dirtyCount = new AtomicInteger();
+
+    public SparsePheromoneMatrix(CandidateLists candidates) {
+        this.candidates = candidates;
+        int slots = candidates.getSize() * candidates.getK();
+        trails = new double[slots];
+        weights = new double[slots];
+        dirty = new int[4 * candidates.getSize() + 16];
+        reset(initialPheromone);
+    }
+
+    @Override
+    public double get(int i, int j) {
+        int slot = candidates.slot(i, j);
+        if (slot < 0) slot = candidates.slot(j, i);
+        return bound(scale * (slot < 0 ? outside : trails[slot]));
+    }
+
+    private double bound(double tau) {
+        return Math.max(minTrail, Math.min(maxTrail, tau));
+    }
+
+    private boolean isBounded() {
+        return minTrail > 0 || maxTrail < Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public void evaporate(double evaporationRate) {
+        scale *= (1 - evaporationRate);
+        if (scale < RENORMALIZE_BELOW) renormalize();
+    }
+
+    private void renormalize() {
+        ArrayKernels.INSTANCE.multiply(trails, scale);
+        outside *= scale;
+        scale = 1.0;
+        allDirty = true;
+    }
+
+    // Deposits on edges outside both candidate lists are dropped
+    @Override
+    public void addPheromone(int i, int j, double amount) {
+        double stored = amount / scale;
+        add(candidates.slot(i, j), stored);
+        add(candidates.slot(j, i), stored);
+    }
+
+    private void add(int slot, double stored) {
+        if (slot < 0) return;
+        double current;
+        do {
+            current = (double) TRAILS.getVolatile(trails, slot);
+        } while (!TRAILS.compareAndSet(trails, slot, current, current + stored));
+        markDirty(slot);
+    }
+
+    // Edges outside both candidate lists keep the shared default trail
+    @Override
+    public void moveTowards(int i, int j, double fraction, double target) {
+        moveTowards(candidates.slot(i, j), fraction, target);
+        moveTowards(candidates.slot(j, i), fraction, target);
+    }
+
+    private void moveTowards(int slot, double fraction, double target) {
+        if (slot < 0) return;
+        trails[slot] = ((1 - fraction) * scale * trails[slot] + fraction * target) / scale;
+        markDirty(slot);
+    }
+
+    private void markDirty(int slot) {
+        int k = dirtyCount.getAndIncrement();
+        if (k < dirty.length) dirty[k] = slot;
+    }
+
+    @Override
+    public void setBounds(double min, double max) {
+        minTrail = min;
+        maxTrail = max;
+        allDirty = true;
+    }
+
+    @Override
+    public void reset(double value) {
+        for (int s = 0; s < trails.length; s++)
+            trails[s] = value;
+        outside = value;
+        scale = 1.0;
+        allDirty = true;
+    }
+
+    // The slot trails followed by the shared default trail, scale and the bounds
+    @Override
+    public double[] saveState() {
+        double[] state = Arrays.copyOf(trails, trails.length + 4);
+        state[trails.length] = outside;
+        state[trails.length + 1] = scale;
+        state[trails.length + 2] = minTrail;
+        state[trails.length + 3] = maxTrail;
+        return state;
+    }
+
+    @Override
+    public void restoreState(double[] state) {
+        if (state.length != trails.length + 4) throw new IllegalArgumentException("Trail state of another size");
+        System.arraycopy(state, 0, trails, 0, trails.length);
+        outside = state[trails.length];
+        scale = state[trails.length + 1];
+        minTrail = state[trails.length + 2];
+        maxTrail = state[trails.length + 3];
+        dirtyCount.set(0);
+        allDirty = true;
+    }
+
+    @Override
+    public void blend(double[] state, double fraction) {
+        if (state.length != trails.length + 4) throw new IllegalArgumentException("Trail state of another size");
+        double keep = 1 - fraction;
+        double other = fraction * state[trails.length + 1] / scale;
+        if (!(state[trails.length + 1] > 0) || !Double.isFinite(other)) {
+            throw new IllegalArgumentException("Bad trail scale " + state[trails.length + 1]);
+        }
+        // The slot trails and the shared default trail
+        for (int s = 0; s <= trails.length; s++) {
+            if (!(state[s] >= 0) || !Double.isFinite(other * state[s])) {
+                throw new IllegalArgumentException("Bad trail " + state[s]);
+            }
+        }
+        for (int s = 0; s < trails.length; s++) {
+            trails[s] = keep * trails[s] + other * state[s];
+        }
+        outside = keep * outside + other * state[trails.length];
+        allDirty = true;
+    }
+
+    // Same policy as PheromoneMatrix.updateWeights
+    @Override
+    public void updateWeights(double alpha) {
+        int count = dirtyCount.getAndSet(0);
+        if (isBounded()) {
+            outside = bound(scale * outside) / scale;
+            outsideWeight = PowUtil.pow(scale * outside, alpha);
+            for (int s = 0; s < trails.length; s++) {
+                double tau = bound(scale * trails[s]);
+                trails[s] = tau / scale;
+                weights[s] = PowUtil.pow(tau, alpha);
+            }
+            weightsAlpha = alpha;
+            allDirty = true;
+            return;
+        }
+        if (PowUtil.pow(scale, alpha) < RENORMALIZE_WEIGHTS_BELOW) renormalize();
+        outsideWeight = PowUtil.pow(outside, alpha);
+        if (allDirty || alpha != weightsAlpha || count > dirty.length) {
+            for (int s = 0; s < trails.length; s++)
+                weights[s] = PowUtil.pow(trails[s], alpha);
+            weightsAlpha = alpha;
+            allDirty = false;
+            return;
+        }
+        for (int k = 0; k < count; k++) {
+            weights[dirty[k]] = PowUtil.pow(trails[dirty[k]], alpha);
+        }
+    }
+
+    @Override
+    public double getWeight(int i, int j) {
+        int slot = candidates.slot(i, j);
+        if (slot < 0) slot = candidates.slot(j, i);
+        return slot < 0 ? outsideWeight : weights[slot];
+    }
+
+    // Weights per candidate slot, aligned with CandidateLists.getNodes()
+    public double[] getCandidateWeights() {
+        return weights;
+    }
+
+    public CandidateLists getCandidates() {
+        return candidates;
+    }
+
+    // Over the node's candidate list only
+    @Override
+    public int branchingFactor(int node, double lambda) {
+        int[] nodes = candidates.getNodes();
+        int base = node * candidates.getK();
+        int end = base;
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        while (end < base + candidates.getK() && nodes[end] >= 0) {
+            min = Math.min(min, trails[end]);
+            max = Math.max(max, trails[end]);
+            end++;
+        }
+        double cutoff = min + lambda * (max - min);
+        int count = 0;
+        for (int s = base; s < end; s++) {
+            if (trails[s] >= cutoff) count++;
+        }
+        return count;
+    }
+
+    @Override
+    public double getInitialPheromone() {
+        return initialPheromone;
+    }
+
+    @Override
+    public int getSize() {
+        return candidates.getSize();
+    }
+}
@@ -0,0 +1,13 @@
+package topaco.aco;
+
+// Pheromone update strategy used by ACO.runColony.
+public enum UpdateRule {
+    // Global evaporation, then the iteration-best solution deposits Q / route length
+    ANT_SYSTEM,
+    // As ANT_SYSTEM but trails are kept within [tauMin, tauMax] derived from the global best, the deposit can
+    // come from the global best, and trails are reset to tauMax when the search stagnates
+    MAX_MIN,
+    // Pseudo-random-proportional choice with probability q0, a local update towards the initial trail on every
+    // edge the ants used, and evaporation plus deposit only on the global-best edges
+    ANT_COLONY_SYSTEM
+}
@@ -0,0 +1,241 @@
+package topaco.batch;
+
+import topaco.aco.UpdateRule;
+
+import java.io.*;
+import java.util.*;
+
+// Settings of a headless batch: the instance files, the runs per file and a grid of ACO parameters. Read from a
+// properties file and key=value arguments, the arguments winning. Every parameter key takes a comma-separated
+// list and the grid is the cross product of all the lists.
+public class BatchConfig {
+    public static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: java topaco.Main [--config batch.properties] [key=value ...]",
+        "  data=Data_TOP          folder of .txt instances, or a comma-separated list of files",
+        "  runs=10                runs per file and parameter set",
+        "  seed=42                run k of every file and parameter set gets the k-th seed split from this one",
+        "  threads=<cores>        worker threads, shared by the runs and the colony ants",
+        "  output=results.csv     one row per run",
+        "  cache=<dir>            keep parsed instances there in binary form (default: -Dinstance.cache, if set)",
+        "  alpha=1.0  beta=5.0  evaporation=0.5  q=100  iterations=100",
+        "  colony=0               ants per iteration for runColony; 0 runs runForResult",
+        "  rule=ANT_SYSTEM        runColony update rule: ANT_SYSTEM, MAX_MIN or ANT_COLONY_SYSTEM",
+        "  localSearch=false      runColony only",
+        "  timeLimit=0            runColony wall-clock limit per run in ms, 0 for none",
+        "Parameter keys take comma-separated lists, e.g. alpha=0.5,1,2 beta=2,5",
+        "",
+        "java topaco.Tune takes the same keys and races the parameter grid per instance class (F-Race); by default",
+        "it races alpha=0.5,1,2 beta=1,2,5 evaporation=0.1,0.3,0.5 q=50,100,200 and writes the winners to",
+        "tuning.csv.",
+        "  runs=10                seeds per file; a class has up to files x runs blocks",
+        "  firstTest=5            blocks evaluated before the first Friedman test",
+        "  confidence=0.95        confidence of the Friedman test and its post-hoc comparisons",
+        "  budget=0               maximum runs per class, 0 for none");
+
+    private static final List<String> KEYS = Arrays.asList("data", "runs", "seed", "threads", "output", "cache",
+        "firstTest", "confidence", "budget", "alpha", "beta", "evaporation", "q", "iterations", "colony", "rule", "localSearch", "timeLimit");
+
+    // One point of the grid
+    public static class Parameters {
+        public final double alpha;
+        public final double beta;
+        public final double evaporation;
+        public final double q;
+        public final int iterations;
+        public final int colony;
+        public final UpdateRule rule;
+        public final boolean localSearch;
+        public final long timeLimit;
+
+        public Parameters(double alpha, double beta, double evaporation, double q, int iterations, int colony,
+                          UpdateRule rule, boolean localSearch, long timeLimit) {
+            this.alpha = alpha;
+            this.beta = beta;
+            this.evaporation = evaporation;
+            this.q = q;
+            this.iterations = iterations;
+            this.colony = colony;
+            this.rule = rule;
+            this.localSearch = localSearch;
+            this.timeLimit = timeLimit;
+        }
+    }
+
+    public final List<File> files;
+    public final int runs;
+    public final long seed;
+    public final int threads;
+    public final File output;
+    // Null to use InstanceCache.shared()
+    public final File cache;
+    public final List<Parameters> grid;
+    // Racing settings, only read by Tuner
+    public final int firstTest;
+    public final double confidence;
+    public final int budget;
+
+    private BatchConfig(Properties settings) {
+        files = dataFiles(settings.getProperty("data", "Data_TOP"));
+        runs = positive("runs", integer("runs", settings.getProperty("runs", "10")));
+        seed = longValue("seed", settings.getProperty("seed", "42"));
+        threads = positive("threads", integer("threads",
+            settings.getProperty("threads", String.valueOf(Runtime.getRuntime().availableProcessors()))));
+        output = new File(settings.getProperty("output", "results.csv"));
+        cache = settings.getProperty("cache") != null ? new File(settings.getProperty("cache")) : null;
+        grid = expand(settings);
+        firstTest = positive("firstTest", integer("firstTest", settings.getProperty("firstTest", "5")));
+        confidence = real("confidence", settings.getProperty("confidence", "0.95"));
+        if (confidence <= 0 || confidence >= 1) {
+            throw new IllegalArgumentException("confidence must be within (0, 1), got " + confidence);
+        }
+        budget = nonNegative("budget", integer("budget", settings.getProperty("budget", "0")));
+    }
+
+    // args: an optional "--config file" and any number of key=value overrides
+    public static BatchConfig parse(String[] args) throws IOException {
+        return parse(args, new Properties());
+    }
+
+    // defaults apply to keys set neither in the file nor in the arguments
+    public static BatchConfig parse(String[] args, Properties defaults) throws IOException {
+        return of(read(args, defaults));
+    }
+
+    // The settings parse would use, before they are checked: the file, the arguments over it, and defaults below
+    // both. Lets other entry points take keys of their own out before calling of.
+    public static Properties read(String[] args, Properties defaults) throws IOException {
+        Properties settings = new Properties(defaults);
+        Properties overrides = new Properties();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--config")) {
+                if (++i == args.length) throw new IllegalArgumentException("--config needs a file");
+                try (Reader reader = new FileReader(args[i])) {
+                    settings.load(reader);
+                }
+            } else {
+                int eq = args[i].indexOf('=');
+                if (eq <= 0) throw new IllegalArgumentException("Expected key=value, got " + args[i]);
+                overrides.setProperty(args[i].substring(0, eq).trim(), args[i].substring(eq + 1).trim());
+            }
+        }
+        settings.putAll(overrides);
+        return settings;
+    }
+
+    public static BatchConfig of(Properties settings) {
+        for (String key : settings.stringPropertyNames()) {
+            if (!KEYS.contains(key)) throw new IllegalArgumentException("Unknown key " + key);
+        }
+        return new BatchConfig(settings);
+    }
+
+    // Run seeds are shared by every file and parameter set, so configurations are compared on the same seeds
+    public long[] runSeeds() {
+        SplittableRandom root = new SplittableRandom(seed);
+        long[] seeds = new long[runs];
+        for (int run = 0; run < runs; run++) {
+            seeds[run] = root.split().nextLong();
+        }
+        return seeds;
+    }
+
+    private static List<File> dataFiles(String value) {
+        List<String> names = list(value);
+        List<File> files = new ArrayList<>();
+        if (names.size() == 1 && new File(names.get(0)).isDirectory()) {
+            File[] found = new File(names.get(0)).listFiles((dir, name) -> name.endsWith(".txt"));
+            if (found != null) files.addAll(Arrays.asList(found));
+            files.sort(Comparator.comparing(File::getName));
+        } else {
+            for (String name : names) {
+                File file = new File(name);
+                if (!file.isFile()) throw new IllegalArgumentException("data: no such file " + name);
+                files.add(file);
+            }
+        }
+        if (files.isEmpty()) throw new IllegalArgumentException("data: no .txt files in " + value);
+        return files;
+    }
+
+    // Later keys vary fastest, so the runs of one alpha are contiguous
+    private static List<Parameters> expand(Properties settings) {
+        List<Parameters> grid = new ArrayList<>();
+        for (String alpha : list(settings.getProperty("alpha", "1.0")))
+        for (String beta : list(settings.getProperty("beta", "5.0")))
+        for (String evaporation : list(settings.getProperty("evaporation", "0.5")))
+        for (String q : list(settings.getProperty("q", "100")))
+        for (String iterations : list(settings.getProperty("iterations", "100")))
+        for (String colony : list(settings.getProperty("colony", "0")))
+        for (String rule : list(settings.getProperty("rule", "ANT_SYSTEM")))
+        for (String localSearch : list(settings.getProperty("localSearch", "false")))
+        for (String timeLimit : list(settings.getProperty("timeLimit", "0"))) {
+            double evaporationRate = real("evaporation", evaporation);
+            if (evaporationRate < 0 || evaporationRate > 1) {
+                throw new IllegalArgumentException("evaporation must be within [0, 1], got " + evaporation);
+            }
+            grid.add(new Parameters(real("alpha", alpha), real("beta", beta), evaporationRate, real("q", q),
+                positive("iterations", integer("iterations", iterations)),
+                nonNegative("colony", integer("colony", colony)),
+                updateRule(rule), bool("localSearch", localSearch),
+                nonNegative("timeLimit", longValue("timeLimit", timeLimit))));
+        }
+        return grid;
+    }
+
+    private static List<String> list(String value) {
+        List<String> values = new ArrayList<>();
+        for (String part : value.split(",")) {
+            if (!part.trim().isEmpty()) values.add(part.trim());
+        }
+        if (values.isEmpty()) throw new IllegalArgumentException("Empty value list: " + value);
+        return values;
+    }
+
+    private static double real(String key, String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + ": not a number: " + value);
+        }
+    }
+
+    private static int integer(String key, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + ": not an integer: " + value);
+        }
+    }
+
+    private static long longValue(String key, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + ": not an integer: " + value);
+        }
+    }
+
+    private static boolean bool(String key, String value) {
+        if (value.equalsIgnoreCase("true")) return true;
+        if (value.equalsIgnoreCase("false")) return false;
+        throw new IllegalArgumentException(key + ": expected true or false, got " + value);
+    }
+
+    private static UpdateRule updateRule(String value) {
+        try {
+            return UpdateRule.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("rule: unknown update rule " + value);
+        }
+    }
+
+    private static int positive(String key, int value) {
+        if (value <= 0) throw new IllegalArgumentException(key + " must be positive, got " + value);
+        return value;
+    }
+
+    private static <T extends Number> T nonNegative(String key, T value) {
+        if (value.longValue() < 0) throw new IllegalArgumentException(key + " must not be negative, got " + value);
+        return value;
+    }
+}
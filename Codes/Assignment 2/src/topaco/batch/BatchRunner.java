@@ -0,0 +1,184 @@
+package topaco.batch;
+
+import topaco.aco.ACO;
+import topaco.model.InstanceCache;
+import topaco.model.ProblemInstance;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Runs every file x parameter set x run of a BatchConfig on one ForkJoinPool. runColony forks its ants into
+// the same pool, so the batch never uses more than config.threads threads. Each file is taken from an
+// InstanceCache when its first run is submitted, and at most two runs per thread are queued at a time. Only the
+// calling thread writes, one CSV row per finished run in completion order, through a single buffered writer.
+public class BatchRunner {
+    private static final String HEADER = "File,Config,Alpha,Beta,Evaporation,Q,Iterations,Colony,Rule,LocalSearch,"
+        + "TimeLimitMs,Run,Seed,Score,Distance,IterationsRun,RuntimeMs,Routes";
+
+    private final BatchConfig config;
+    private final PrintStream log;
+
+    // The runs of one file and parameter set; a summary line is logged when the last one finishes
+    private static class Group {
+        final String fileName;
+        final int configIndex;
+        final BatchConfig.Parameters parameters;
+        int remaining;
+        double bestScore = -1;
+        double scoreSum;
+
+        Group(String fileName, int configIndex, BatchConfig.Parameters parameters, int runs) {
+            this.fileName = fileName;
+            this.configIndex = configIndex;
+            this.parameters = parameters;
+            this.remaining = runs;
+        }
+    }
+
+    private static class RunResult {
+        final Group group;
+        final int run;
+        final long seed;
+        final List<ACO.ResultPerVehicle> routes;
+        final int iterationsRun;
+        final long runtimeNanos;
+
+        RunResult(Group group, int run, long seed, List<ACO.ResultPerVehicle> routes, int iterationsRun,
+                  long runtimeNanos) {
+            this.group = group;
+            this.run = run;
+            this.seed = seed;
+            this.routes = routes;
+            this.iterationsRun = iterationsRun;
+            this.runtimeNanos = runtimeNanos;
+        }
+
+        double score() {
+            return BatchRunner.score(routes);
+        }
+
+        double distance() {
+            double distance = 0;
+            for (ACO.ResultPerVehicle vehicle : routes) {
+                // runForResult leaves Double.MAX_VALUE on a vehicle that never found a route
+                if (vehicle.route.length > 0) distance += vehicle.distance;
+            }
+            return distance;
+        }
+    }
+
+    public BatchRunner(BatchConfig config, PrintStream log) {
+        this.config = config;
+        this.log = log;
+    }
+
+    // Returns the number of runs written
+    public int run() throws IOException, InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(config.threads);
+        CompletionService<RunResult> completion = new ExecutorCompletionService<>(pool);
+        int window = 2 * config.threads;
+        long[] seeds = config.runSeeds();
+        InstanceCache instances = config.cache != null ? new InstanceCache(config.cache) : InstanceCache.shared();
+        int submitted = 0;
+        int written = 0;
+
+        try (BufferedWriter writer = Files.newBufferedWriter(config.output.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+
+            for (File file : config.files) {
+                ProblemInstance instance = instances.get(file.getPath());
+                for (int c = 0; c < config.grid.size(); c++) {
+                    BatchConfig.Parameters parameters = config.grid.get(c);
+                    Group group = new Group(file.getName(), c, parameters, config.runs);
+                    for (int run = 0; run < config.runs; run++) {
+                        if (submitted - written == window) {
+                            write(writer, take(completion));
+                            written++;
+                        }
+                        int runIndex = run;
+                        completion.submit(() -> solve(pool, instance, group, runIndex, seeds[runIndex]));
+                        submitted++;
+                    }
+                }
+            }
+            while (written < submitted) {
+                write(writer, take(completion));
+                written++;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return written;
+    }
+
+    private static RunResult solve(ForkJoinPool pool, ProblemInstance instance, Group group, int run, long seed) {
+        BatchConfig.Parameters p = group.parameters;
+        ACO aco = new ACO(instance, new Random(seed), p.alpha, p.beta, p.evaporation, p.q);
+        long start = System.nanoTime();
+        List<ACO.ResultPerVehicle> routes = solve(aco, p, pool);
+        int iterationsRun = p.colony > 0 ? aco.getIterationsRun() : p.iterations;
+        return new RunResult(group, run, seed, routes, iterationsRun, System.nanoTime() - start);
+    }
+
+    // One run of a parameter set: runColony forking into pool for a positive colony, runForResult otherwise
+    static List<ACO.ResultPerVehicle> solve(ACO aco, BatchConfig.Parameters p, ForkJoinPool pool) {
+        if (p.colony > 0) {
+            aco.setUpdateRule(p.rule);
+            aco.setLocalSearch(p.localSearch);
+            aco.setTimeLimit(p.timeLimit);
+            return aco.runColony(p.iterations, p.colony, pool);
+        }
+        return aco.runForResult(p.iterations);
+    }
+
+    static double score(List<ACO.ResultPerVehicle> routes) {
+        double score = 0;
+        for (ACO.ResultPerVehicle vehicle : routes) score += vehicle.score;
+        return score;
+    }
+
+    private static RunResult take(CompletionService<RunResult> completion) throws InterruptedException {
+        try {
+            return completion.take().get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch run failed", e.getCause());
+        }
+    }
+
+    private void write(BufferedWriter writer, RunResult result) throws IOException {
+        Group group = result.group;
+        BatchConfig.Parameters p = group.parameters;
+        double score = result.score();
+        writer.write(String.format(Locale.ROOT, "%s,%d,%s,%s,%s,%s,%d,%d,%s,%b,%d,%d,%d,%.2f,%.2f,%d,%.3f,%s",
+            group.fileName, group.configIndex, p.alpha, p.beta, p.evaporation, p.q, p.iterations, p.colony,
+            p.rule, p.localSearch, p.timeLimit, result.run, result.seed, score, result.distance(),
+            result.iterationsRun, result.runtimeNanos / 1e6, routes(result.routes)));
+        writer.newLine();
+
+        group.bestScore = Math.max(group.bestScore, score);
+        group.scoreSum += score;
+        if (--group.remaining == 0) {
+            // Rows of finished groups are on disk before their summary is logged
+            writer.flush();
+            log.printf(Locale.ROOT, "%-20s config %-4d best %10.2f  mean %10.2f%n",
+                group.fileName, group.configIndex, group.bestScore, group.scoreSum / config.runs);
+        }
+    }
+
+    // Vehicles separated by '|', nodes by spaces, so the column needs no quoting
+    private static String routes(List<ACO.ResultPerVehicle> routes) {
+        StringBuilder text = new StringBuilder();
+        for (ACO.ResultPerVehicle vehicle : routes) {
+            if (text.length() > 0) text.append('|');
+            for (int k = 0; k < vehicle.route.length; k++) {
+                if (k > 0) text.append(' ');
+                text.append(vehicle.route[k]);
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,133 @@
+package topaco.batch;
+
+import topaco.utils.FriedmanTest;
+
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+// F-Race: every candidate still in the race is evaluated on the same sequence of blocks, and from block firstTest
+// on, a Friedman test over all blocks so far drops the candidates that are significantly worse than the best. The
+// first firstTest blocks are evaluated together and later ones one at a time, each block's evaluations in parallel,
+// so compute goes to candidates that can still win.
+public class Race {
+    // Cost of a candidate on a block, lower is better; called concurrently from the executor's threads
+    public interface Evaluator {
+        double cost(int candidate, int block) throws Exception;
+    }
+
+    public static class Result {
+        // Candidates left at the end, best first by rank sum and then by mean cost
+        public final int[] survivors;
+        // Mean cost of each survivor, in the order of survivors
+        public final double[] meanCosts;
+        public final int blocks;
+        public final int evaluations;
+
+        Result(int[] survivors, double[] meanCosts, int blocks, int evaluations) {
+            this.survivors = survivors;
+            this.meanCosts = meanCosts;
+            this.blocks = blocks;
+            this.evaluations = evaluations;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final int firstTest;
+    private final double confidence;
+    // Maximum evaluations per race, 0 for none
+    private final int budget;
+    private final PrintStream log;
+
+    public Race(ExecutorService executor, int firstTest, double confidence, int budget, PrintStream log) {
+        this.executor = executor;
+        this.firstTest = firstTest;
+        this.confidence = confidence;
+        this.budget = budget;
+        this.log = log;
+    }
+
+    // Ends when one candidate is left, the blocks run out or the next block would exceed the budget
+    public Result run(String name, int candidateCount, int blockCount, Evaluator evaluator)
+            throws InterruptedException {
+        double[][] costs = new double[blockCount][candidateCount];
+        List<Integer> alive = new ArrayList<>();
+        for (int c = 0; c < candidateCount; c++) alive.add(c);
+        int blocks = 0;
+        int evaluations = 0;
+
+        // A lone candidate still runs the first blocks, so it has a mean cost to report
+        while (blocks < blockCount && (alive.size() > 1 || blocks == 0)) {
+            int step = blocks == 0 ? Math.min(firstTest, blockCount) : 1;
+            if (blocks > 0 && budget > 0 && evaluations + alive.size() > budget) break;
+            evaluate(alive, blocks, blocks + step, costs, evaluator);
+            blocks += step;
+            evaluations += step * alive.size();
+
+            if (blocks >= firstTest && alive.size() > 1) {
+                boolean[] worse = new FriedmanTest(columns(costs, blocks, alive)).worseThanBest(confidence);
+                List<Integer> kept = new ArrayList<>();
+                for (int k = 0; k < alive.size(); k++) {
+                    if (!worse[k]) kept.add(alive.get(k));
+                }
+                if (kept.size() < alive.size()) {
+                    log.printf(Locale.ROOT, "%-12s block %3d: dropped %d, %d of %d candidates left%n",
+                        name, blocks, alive.size() - kept.size(), kept.size(), candidateCount);
+                }
+                alive = kept;
+            }
+        }
+        return result(costs, blocks, alive, evaluations);
+    }
+
+    private void evaluate(List<Integer> alive, int from, int to, double[][] costs, Evaluator evaluator)
+            throws InterruptedException {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int block = from; block < to; block++) {
+            for (int candidate : alive) {
+                int b = block;
+                tasks.add(() -> {
+                    costs[b][candidate] = evaluator.cost(candidate, b);
+                    return null;
+                });
+            }
+        }
+        // invokeAll's completion happens-before its return, so the cost writes are visible here
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Race evaluation failed", e.getCause());
+            }
+        }
+    }
+
+    // The first blocks rows, restricted to the given candidates
+    private static double[][] columns(double[][] costs, int blocks, List<Integer> candidates) {
+        double[][] selected = new double[blocks][candidates.size()];
+        for (int b = 0; b < blocks; b++) {
+            for (int k = 0; k < candidates.size(); k++) selected[b][k] = costs[b][candidates.get(k)];
+        }
+        return selected;
+    }
+
+    private static Result result(double[][] costs, int blocks, List<Integer> alive, int evaluations) {
+        double[] rankSums = new FriedmanTest(columns(costs, blocks, alive)).getRankSums();
+        double[] means = new double[alive.size()];
+        for (int k = 0; k < alive.size(); k++) {
+            for (int b = 0; b < blocks; b++) means[k] += costs[b][alive.get(k)];
+            means[k] /= blocks;
+        }
+        Integer[] order = new Integer[alive.size()];
+        for (int k = 0; k < order.length; k++) order[k] = k;
+        Arrays.sort(order, Comparator.<Integer>comparingDouble(k -> rankSums[k]).thenComparingDouble(k -> means[k]));
+
+        int[] survivors = new int[order.length];
+        double[] meanCosts = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            survivors[i] = alive.get(order[i]);
+            meanCosts[i] = means[order[i]];
+        }
+        return new Result(survivors, meanCosts, blocks, evaluations);
+    }
+}
@@ -0,0 +1,104 @@
+package topaco.batch;
+
+import topaco.aco.ACO;
+import topaco.model.InstanceCache;
+import topaco.model.ProblemInstance;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+// Races the parameter grid of a BatchConfig separately for every instance class and writes the winner of each
+// class to config.output. A class is a node set and fleet size, i.e. the file name without its last part
+// (p3.4.t.txt -> p3.4), since Chao's instances of one class differ only in the time limit. The blocks of a class
+// cycle through its files, block b running file b % files with run seed b / files, so every candidate meets the
+// same instances and seeds.
+public class Tuner {
+    private static final String HEADER = "Class,Files,Config,Alpha,Beta,Evaporation,Q,Iterations,Colony,Rule,"
+        + "LocalSearch,TimeLimitMs,Survivors,Blocks,Runs,MeanScore";
+
+    private final BatchConfig config;
+    private final PrintStream log;
+
+    public Tuner(BatchConfig config, PrintStream log) {
+        this.config = config;
+        this.log = log;
+    }
+
+    // The grid raced when the settings give no parameter lists: the constructor defaults and their neighbours
+    public static Properties defaults() {
+        Properties defaults = new Properties();
+        defaults.setProperty("alpha", "0.5,1,2");
+        defaults.setProperty("beta", "1,2,5");
+        defaults.setProperty("evaporation", "0.1,0.3,0.5");
+        defaults.setProperty("q", "50,100,200");
+        defaults.setProperty("output", "tuning.csv");
+        return defaults;
+    }
+
+    static String instanceClass(String fileName) {
+        String name = fileName.endsWith(".txt") ? fileName.substring(0, fileName.length() - 4) : fileName;
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    // Returns the number of classes written
+    public int run() throws IOException, InterruptedException {
+        ForkJoinPool pool = new ForkJoinPool(config.threads);
+        long[] seeds = config.runSeeds();
+        InstanceCache instances = config.cache != null ? new InstanceCache(config.cache) : InstanceCache.shared();
+        Race race = new Race(pool, config.firstTest, config.confidence, config.budget, log);
+
+        Map<String, List<File>> classes = new TreeMap<>();
+        for (File file : config.files) {
+            classes.computeIfAbsent(instanceClass(file.getName()), name -> new ArrayList<>()).add(file);
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(config.output.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+
+            for (Map.Entry<String, List<File>> entry : classes.entrySet()) {
+                List<ProblemInstance> problems = new ArrayList<>();
+                for (File file : entry.getValue()) problems.add(instances.get(file.getPath()));
+                int files = problems.size();
+
+                Race.Result result = race.run(entry.getKey(), config.grid.size(), files * config.runs,
+                    (candidate, block) -> {
+                        BatchConfig.Parameters p = config.grid.get(candidate);
+                        ACO aco = new ACO(problems.get(block % files), new Random(seeds[block / files]),
+                            p.alpha, p.beta, p.evaporation, p.q);
+                        return -BatchRunner.score(BatchRunner.solve(aco, p, pool));
+                    });
+                write(writer, entry.getKey(), entry.getValue(), result);
+                writer.flush();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return classes.size();
+    }
+
+    private void write(BufferedWriter writer, String instanceClass, List<File> files, Race.Result result)
+            throws IOException {
+        int winner = result.survivors[0];
+        BatchConfig.Parameters p = config.grid.get(winner);
+        double meanScore = -result.meanCosts[0];
+        StringBuilder names = new StringBuilder();
+        for (File file : files) {
+            if (names.length() > 0) names.append(' ');
+            names.append(file.getName());
+        }
+        writer.write(String.format(Locale.ROOT, "%s,%s,%d,%s,%s,%s,%s,%d,%d,%s,%b,%d,%d,%d,%d,%.2f",
+            instanceClass, names, winner, p.alpha, p.beta, p.evaporation, p.q, p.iterations, p.colony, p.rule,
+            p.localSearch, p.timeLimit, result.survivors.length, result.blocks, result.evaluations, meanScore));
+        writer.newLine();
+
+        log.printf(Locale.ROOT, "%-12s config %-4d alpha %s beta %s evaporation %s q %s: mean %10.2f, "
+                + "%d of %d left after %d blocks, %d runs%n",
+            instanceClass, winner, p.alpha, p.beta, p.evaporation, p.q, meanScore, result.survivors.length,
+            config.grid.size(), result.blocks, result.evaluations);
+    }
+}
@@ -1,6 +1,7 @@
 package topaco.gui;
 
 import topaco.aco.ACO;
+import topaco.model.InstanceCache;
 import topaco.model.ProblemInstance;
 
 import javax.swing.*;
@@ -10,12 +11,17 @@ import java.awt.event.ActionEvent;
 import java.io.File;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.*;
 
 public class ACOGUI extends JFrame {
     private JTextField folderField, seedField, alphaField, betaField, evapField, qField, iterField, runsField;
     private JTextArea resultArea;
     private DrawPanel drawPanel;
     private JComboBox<String> fileSelector, vehicleSelector;
+    private JButton runButton, cancelButton;
+    private JProgressBar progressBar;
+    private JLabel statusLabel;
+    private BatchRun batch;
 
     private Map<String, Map<Integer, ACO.ResultPerVehicle>> allBestResults = new HashMap<>();
     private Map<String, ProblemInstance> allInstances = new HashMap<>();
@@ -47,9 +53,19 @@ public class ACOGUI extends JFrame {
         inputPanel.add(new JLabel("Iterations:")); inputPanel.add(iterField);
         inputPanel.add(new JLabel("Runs per File:")); inputPanel.add(runsField);
 
-        JButton runButton = new JButton("Run ACO");
+        runButton = new JButton("Run ACO");
         runButton.addActionListener(this::runACO);
 
+        cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        cancelButton.addActionListener(e -> {
+            if (batch != null) batch.cancel(true);
+        });
+
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        statusLabel = new JLabel(" ");
+
         fileSelector = new JComboBox<>();
         fileSelector.addActionListener(e -> showSelectedFileResults());
 
@@ -65,7 +81,14 @@ public class ACOGUI extends JFrame {
         selectorPanel.add(vehicleSelector);
 
         topPanel.add(inputPanel, BorderLayout.CENTER);
-        topPanel.add(runButton, BorderLayout.SOUTH);
+        JPanel runPanel = new JPanel(new BorderLayout());
+        JPanel buttonPanel = new JPanel(new GridLayout(1, 2));
+        buttonPanel.add(runButton);
+        buttonPanel.add(cancelButton);
+        runPanel.add(buttonPanel, BorderLayout.NORTH);
+        runPanel.add(progressBar, BorderLayout.CENTER);
+        runPanel.add(statusLabel, BorderLayout.SOUTH);
+        topPanel.add(runPanel, BorderLayout.SOUTH);
         topPanel.add(selectorPanel, BorderLayout.NORTH);
 
         resultArea = new JTextArea(10, 40);
@@ -82,12 +105,14 @@ public class ACOGUI extends JFrame {
         setVisible(true);
     }
 
+    // Reads the settings on the event thread and hands the batch to a BatchRun; results show up as files finish
     private void runACO(ActionEvent e) {
         try {
             fileSelector.removeAllItems();
             vehicleSelector.removeAllItems();
             allBestResults.clear();
             allInstances.clear();
+            fileRuntimes.clear();
 
             String folderPath = folderField.getText().trim();
             long seed = Long.parseLong(seedField.getText().trim());
@@ -107,52 +132,178 @@ public class ACOGUI extends JFrame {
                 return;
             }
 
-            for (File file : files) {
-                String fileName = file.getName();
-                Map<Integer, ACO.ResultPerVehicle> bestResults = new HashMap<>();
-                ProblemInstance bestInstance = null;
-
-                long startFileTime = System.currentTimeMillis();
-
-                for (int run = 0; run < runs; run++) {
-                    ProblemInstance instance = new ProblemInstance(file.getPath());
-                    Random random = new Random(seed);
-                    ACO aco = new ACO(instance, random, alpha, beta, evap, q);
-                    List<ACO.ResultPerVehicle> results = aco.runForResult(iterations);
-
-                    for (ACO.ResultPerVehicle res : results) {
-                        ACO.ResultPerVehicle current = bestResults.get(res.vehicleIndex);
-                        if (current == null || res.score > current.score ||
-                           (res.score == current.score && res.distance < current.distance)) {
-                            bestResults.put(res.vehicleIndex, res);
-                            bestInstance = instance; 
-                        }
-                    }
+            runButton.setEnabled(false);
+            cancelButton.setEnabled(true);
+            progressBar.setMaximum(files.length * runs);
+            progressBar.setValue(0);
+            statusLabel.setText("Running " + files.length + " files x " + runs + " runs...");
+
+            batch = new BatchRun(files, runs, seed, alpha, beta, evap, q, iterations);
+            batch.execute();
+
+        } catch (Exception ex) {
+            ex.printStackTrace();
+            resultArea.setText("Error: " + ex.getMessage());
+        } 
+    }
+
+    // A completed run, plus the file's merged results once its last run is in
+    private static class RunUpdate {
+        final String fileName;
+        final int runsDone;
+        final double bestScore;
+        final FileResult fileResult;
+
+        RunUpdate(String fileName, int runsDone, double bestScore, FileResult fileResult) {
+            this.fileName = fileName;
+            this.runsDone = runsDone;
+            this.bestScore = bestScore;
+            this.fileResult = fileResult;
+        }
+    }
+
+    private static class RunResult {
+        final FileResult file;
+        final List<ACO.ResultPerVehicle> results;
+        final double seconds;
+
+        RunResult(FileResult file, List<ACO.ResultPerVehicle> results, double seconds) {
+            this.file = file;
+            this.results = results;
+            this.seconds = seconds;
+        }
+    }
+
+    // Best route per vehicle over all runs of one file. runtimeSeconds adds up the runs' own times, so it stays
+    // comparable with running the file alone.
+    private static class FileResult {
+        final String fileName;
+        final ProblemInstance instance;
+        final Map<Integer, ACO.ResultPerVehicle> bestResults = new HashMap<>();
+        int runsDone;
+        double runtimeSeconds;
+
+        FileResult(String fileName, ProblemInstance instance) {
+            this.fileName = fileName;
+            this.instance = instance;
+        }
+
+        void merge(List<ACO.ResultPerVehicle> results, double seconds) {
+            for (ACO.ResultPerVehicle res : results) {
+                ACO.ResultPerVehicle current = bestResults.get(res.vehicleIndex);
+                if (current == null || res.score > current.score ||
+                   (res.score == current.score && res.distance < current.distance)) {
+                    bestResults.put(res.vehicleIndex, res);
                 }
+            }
+            runsDone++;
+            runtimeSeconds += seconds;
+        }
 
-                long endFileTime = System.currentTimeMillis(); // <<< end timing this file
-                double fileRuntimeSeconds = (endFileTime - startFileTime) / 1000.0;
+        double totalScore() {
+            double total = 0.0;
+            for (ACO.ResultPerVehicle res : bestResults.values()) total += res.score;
+            return total;
+        }
+    }
 
-                fileRuntimes.put(fileName, fileRuntimeSeconds);
+    // Runs every file x run on a pool with one thread per core, off the event thread. Each file is read once
+    // and shared by its runs. Cancelling interrupts the batch thread, which cancels the solvers still running.
+    private class BatchRun extends SwingWorker<Void, RunUpdate> {
+        private final File[] files;
+        private final int runs;
+        private final long seed;
+        private final double alpha, beta, evap, q;
+        private final int iterations;
+        private final Set<ACO> active = ConcurrentHashMap.newKeySet();
+        private int filesDone;
+
+        BatchRun(File[] files, int runs, long seed, double alpha, double beta, double evap, double q, int iterations) {
+            this.files = files;
+            this.runs = runs;
+            this.seed = seed;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.evap = evap;
+            this.q = q;
+            this.iterations = iterations;
+        }
 
-                allBestResults.put(fileName, bestResults);
-                allInstances.put(fileName, bestInstance);
-                fileSelector.addItem(fileName);
+        @Override
+        protected Void doInBackground() throws Exception {
+            ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            CompletionService<RunResult> completion = new ExecutorCompletionService<>(executor);
+            try {
+                for (File file : files) {
+                    FileResult fileResult = new FileResult(file.getName(), InstanceCache.shared().get(file.getPath()));
+                    for (int run = 0; run < runs; run++) {
+                        completion.submit(() -> solve(fileResult));
+                    }
+                    if (isCancelled()) return null;
+                }
+
+                for (int done = 0; done < files.length * runs; done++) {
+                    RunResult result = completion.take().get();
+                    FileResult fileResult = result.file;
+                    fileResult.merge(result.results, result.seconds);
+                    publish(new RunUpdate(fileResult.fileName, fileResult.runsDone, fileResult.totalScore(),
+                        fileResult.runsDone == runs ? fileResult : null));
+                }
+            } finally {
+                for (ACO aco : active) aco.cancel();
+                executor.shutdownNow();
             }
+            return null;
+        }
 
-            
-            if (fileSelector.getItemCount() > 0) {
-                fileSelector.setSelectedIndex(0);
-                showSelectedFileResults();
+        // Every run starts from the same seed, as before
+        private RunResult solve(FileResult file) {
+            ACO aco = new ACO(file.instance, new Random(seed), alpha, beta, evap, q);
+            active.add(aco);
+            if (isCancelled()) aco.cancel();
+            try {
+                long start = System.nanoTime();
+                List<ACO.ResultPerVehicle> results = aco.runForResult(iterations);
+                return new RunResult(file, results, (System.nanoTime() - start) / 1e9);
+            } finally {
+                active.remove(aco);
             }
+        }
 
-            vehicleSelector.setEnabled(true);
-            exportResultsToCSV(seed);
+        @Override
+        protected void process(List<RunUpdate> updates) {
+            for (RunUpdate update : updates) {
+                progressBar.setValue(progressBar.getValue() + 1);
+                statusLabel.setText(String.format("%s: run %d/%d done, best score %.1f",
+                    update.fileName, update.runsDone, runs, update.bestScore));
+                if (update.fileResult != null) {
+                    filesDone++;
+                    allBestResults.put(update.fileName, update.fileResult.bestResults);
+                    allInstances.put(update.fileName, update.fileResult.instance);
+                    fileRuntimes.put(update.fileName, update.fileResult.runtimeSeconds);
+                    fileSelector.addItem(update.fileName);
+                    vehicleSelector.setEnabled(true);
+                }
+            }
+        }
 
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            resultArea.setText("Error: " + ex.getMessage());
-        } 
+        @Override
+        protected void done() {
+            runButton.setEnabled(true);
+            cancelButton.setEnabled(false);
+            if (isCancelled()) {
+                statusLabel.setText("Cancelled after " + filesDone + " of " + files.length + " files.");
+            } else {
+                try {
+                    get();
+                    statusLabel.setText("Finished " + files.length + " files.");
+                } catch (InterruptedException | ExecutionException ex) {
+                    ex.printStackTrace();
+                    statusLabel.setText("Error: " + ex.getCause());
+                }
+            }
+            if (!allBestResults.isEmpty()) exportResultsToCSV(seed);
+        }
     }
 
     private void exportResultsToCSV(long seed) {
@@ -172,7 +323,7 @@ public class ACOGUI extends JFrame {
                             fileName,
                             seed, // Pass the seed here
                             res.vehicleIndex + 1,
-                            res.route != null ? res.route.toString() : "",
+                            res.route != null ? Arrays.toString(res.route) : "",
                             res.score,
                             res.distance,
                             runtime != null ? runtime : 0.0
@@ -229,7 +380,7 @@ public class ACOGUI extends JFrame {
         sb.append("Vehicle ").append(selectedVehicle.vehicleIndex + 1).append(":\n");
         sb.append("  Best Score: ").append(selectedVehicle.score).append("\n");
         sb.append("  Best Distance: ").append(selectedVehicle.distance).append("\n");
-        sb.append("  Best Route: ").append(selectedVehicle.route).append("\n\n");
+        sb.append("  Best Route: ").append(Arrays.toString(selectedVehicle.route)).append("\n\n");
 
         Double runtime = fileRuntimes.get(selectedFile);
         if (runtime != null) {
@@ -243,9 +394,9 @@ public class ACOGUI extends JFrame {
 
     private static class DrawPanel extends JPanel {
         private ProblemInstance instance;
-        private List<Integer> route;
+        private int[] route;
 
-        public void setData(ProblemInstance instance, List<Integer> route) {
+        public void setData(ProblemInstance instance, int[] route) {
             this.instance = instance;
             this.route = route;
             repaint();
@@ -263,9 +414,9 @@ public class ACOGUI extends JFrame {
             double scaleX = (getWidth() - 2 * padding) / getMaxX();
             double scaleY = (getHeight() - 2 * padding) / getMaxY();
 
-            for (int i = 0; i < route.size() - 1; i++) {
-                int from = route.get(i);
-                int to = route.get(i + 1);
+            for (int i = 0; i < route.length - 1; i++) {
+                int from = route[i];
+                int to = route[i + 1];
 
                 int x1 = (int) (instance.getNode(from).getX() * scaleX) + padding;
                 int y1 = (int) (instance.getNode(from).getY() * scaleY) + padding;
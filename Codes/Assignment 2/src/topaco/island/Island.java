@@ -0,0 +1,276 @@
+package topaco.island;
+
+import topaco.aco.ACO;
+import topaco.aco.Migration;
+import topaco.aco.PheromoneTrails;
+import topaco.model.ProblemInstance;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+// One colony of an island model, talking to the others over TCP. Every interval iterations the colony's best
+// solution, and with blending its trails, is sent to the islands the topology names, and whatever arrived since the
+// last migration is taken in: trails are blended in as they come, and the best immigrant is offered to the colony,
+// which adopts it if it beats its own best. Migration is asynchronous: sending happens on a background thread,
+// receiving on one thread per peer, and the solver never waits for another island. A peer that is not up yet, or
+// has finished, is skipped until it answers again.
+public class Island implements Migration, AutoCloseable {
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    private static final int RETRY_MILLIS = 100;
+    private static final double TMAX_TOLERANCE = 1e-9;
+
+    private final ProblemInstance instance;
+    private final double[] problem;
+    private final int maxTrails;
+    private final int id;
+    private final List<InetSocketAddress> addresses;
+    private final List<Integer> targets;
+    private final int interval;
+    private final double blend;
+    private final PrintStream log;
+
+    private ServerSocket server;
+    private volatile boolean closed;
+    private final Set<Socket> accepted = ConcurrentHashMap.newKeySet();
+    // Latest migrant per sender since the last migration
+    private final ConcurrentHashMap<Integer, Migrant> inbox = new ConcurrentHashMap<>();
+    private final AtomicReference<Migrant> pending = new AtomicReference<>();
+    private final ExecutorService sender;
+    // Sender thread only
+    private final Map<Integer, Socket> links = new HashMap<>();
+    private final Set<Integer> unreachable = new HashSet<>();
+
+    // addresses holds every island, this one at index id. blend is the fraction of the way this island's trails
+    // move towards each received set of trails; 0 exchanges solutions only. beta must be the colonies' beta, as
+    // sparse trails are laid out by it.
+    public Island(ProblemInstance instance, double beta, int id, List<InetSocketAddress> addresses, Topology topology,
+                  int interval, double blend, PrintStream log) {
+        this.instance = instance;
+        int n = instance.getNodeCount();
+        this.problem = new double[]{n, instance.getVehicleCount(), instance.getTmax(), beta};
+        // Dense trails are the larger layout; a double array this long must also fit a byte array
+        this.maxTrails = (int) Math.min((long) n * (n + 1) / 2 + 4, Integer.MAX_VALUE / 8);
+        this.id = id;
+        this.addresses = addresses;
+        this.targets = topology.targets(id, addresses.size());
+        this.interval = interval;
+        this.blend = blend;
+        this.log = log;
+        this.sender = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "island-" + id + "-sender"));
+    }
+
+    // Binds this island's port on every interface and starts taking migrants from the others
+    public void start() throws IOException {
+        server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress(addresses.get(id).getPort()));
+        daemon(this::accept, "island-" + id + "-acceptor").start();
+    }
+
+    // Waits until every island this one sends to accepts a connection, or the timeout passes; returns whether all
+    // did. Islands started one after another then exchange from the first migration on.
+    public boolean awaitPeers(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        Future<Boolean> connected = sender.submit(() -> {
+            for (int target : targets) {
+                while (!links.containsKey(target)) {
+                    try {
+                        connect(target);
+                    } catch (IOException e) {
+                        if (System.nanoTime() - deadline >= 0) return false;
+                        Thread.sleep(RETRY_MILLIS);
+                    }
+                }
+            }
+            return true;
+        });
+        try {
+            return connected.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Waiting for islands failed", e.getCause());
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private void accept() {
+        try {
+            while (!closed) {
+                Socket socket = server.accept();
+                accepted.add(socket);
+                daemon(() -> receive(socket), "island-" + id + "-receiver").start();
+            }
+        } catch (IOException e) {
+            if (!closed) log.printf("island %d: stopped accepting migrants: %s%n", id, e.getMessage());
+        }
+    }
+
+    private void receive(Socket socket) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            while (true) {
+                Migrant migrant = Migrant.readFrom(in, problem, maxTrails);
+                inbox.put(migrant.sender, migrant);
+            }
+        } catch (EOFException e) {
+            // The peer finished
+        } catch (IOException e) {
+            if (!closed) log.printf("island %d: dropped connection from %s: %s%n", id, socket.getRemoteSocketAddress(),
+                e.getMessage());
+        } finally {
+            accepted.remove(socket);
+        }
+    }
+
+    @Override
+    public List<ACO.ResultPerVehicle> migrate(int iteration, List<ACO.ResultPerVehicle> best, PheromoneTrails trails) {
+        if (iteration % interval != 0) return null;
+        // The trails are copied here on the solver thread; they are written out on the sender thread
+        if (!targets.isEmpty() && !best.isEmpty()) {
+            send(new Migrant(problem, id, iteration, best, blend > 0 ? trails.saveState() : null));
+        }
+
+        Migrant chosen = null;
+        for (Integer from : new ArrayList<>(inbox.keySet())) {
+            Migrant migrant = verified(inbox.remove(from));
+            if (migrant == null) continue;
+            if (blend > 0 && migrant.trails != null) {
+                try {
+                    trails.blend(migrant.trails, blend);
+                } catch (IllegalArgumentException e) {
+                    log.printf("island %d: trails of island %d not blended: %s%n", id, from, e.getMessage());
+                }
+            }
+            if (chosen == null || migrant.score() > chosen.score()
+                || (migrant.score() == chosen.score() && migrant.distance() < chosen.distance())) {
+                chosen = migrant;
+            }
+        }
+        if (chosen == null) return null;
+
+        double bestScore = 0;
+        for (ACO.ResultPerVehicle vehicle : best) bestScore += vehicle.score;
+        if (chosen.score() > bestScore) {
+            log.printf(Locale.ROOT, "island %d: iteration %d, island %d sent %.2f (own best %.2f)%n",
+                id, iteration, chosen.sender, chosen.score(), bestScore);
+        }
+        return chosen.routes;
+    }
+
+    // The migrant with score and distance recomputed from this island's instance, or null if its routes are not
+    // a feasible solution, one route per vehicle at most
+    private Migrant verified(Migrant migrant) {
+        if (migrant == null) return null;
+        boolean[] taken = new boolean[instance.getNodeCount()];
+        boolean[] used = new boolean[instance.getVehicleCount()];
+        List<ACO.ResultPerVehicle> routes = new ArrayList<>();
+        for (ACO.ResultPerVehicle vehicle : migrant.routes) {
+            int[] route = vehicle.route;
+            double score = 0;
+            double distance = 0;
+            boolean feasible = vehicle.vehicleIndex >= 0 && vehicle.vehicleIndex < used.length
+                && !used[vehicle.vehicleIndex];
+            if (feasible) used[vehicle.vehicleIndex] = true;
+            feasible = feasible
+                && (route.length == 0 || (route.length >= 2 && route[0] == 0 && route[route.length - 1] == 0));
+            for (int k = 1; feasible && k < route.length; k++) {
+                distance += instance.getDistance(route[k - 1], route[k]);
+                if (k < route.length - 1) {
+                    feasible = route[k] != 0 && !taken[route[k]];
+                    taken[route[k]] = true;
+                    score += instance.getScore(route[k]);
+                }
+            }
+            if (!feasible || distance > instance.getTmax() * (1 + TMAX_TOLERANCE)) {
+                log.printf("island %d: ignoring an infeasible solution from island %d%n", id, migrant.sender);
+                return null;
+            }
+            routes.add(new ACO.ResultPerVehicle(vehicle.vehicleIndex, route, score, distance));
+        }
+        return new Migrant(migrant.problem, migrant.sender, migrant.iteration, routes, migrant.trails);
+    }
+
+    // Latest wins: a migrant that arrives while the previous one is still being sent replaces any waiting one
+    private void send(Migrant migrant) {
+        if (pending.getAndSet(migrant) == null) {
+            try {
+                sender.execute(this::sendPending);
+            } catch (RejectedExecutionException e) {
+                // Closed
+            }
+        }
+    }
+
+    private void sendPending() {
+        Migrant migrant = pending.getAndSet(null);
+        if (migrant == null) return;
+        for (int target : targets) {
+            try {
+                Socket socket = links.containsKey(target) ? links.get(target) : connect(target);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                migrant.writeTo(out);
+                out.flush();
+                unreachable.remove(target);
+            } catch (IOException e) {
+                closeLink(target);
+                if (unreachable.add(target)) {
+                    log.printf("island %d: island %d at %s not reachable (%s), retrying every migration%n",
+                        id, target, addresses.get(target), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Socket connect(int target) throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(addresses.get(target), CONNECT_TIMEOUT_MILLIS);
+            socket.setTcpNoDelay(true);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        links.put(target, socket);
+        return socket;
+    }
+
+    private void closeLink(int target) {
+        Socket socket = links.remove(target);
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Nothing left to send on it
+        }
+    }
+
+    // Stops receiving and lets a send in progress finish before the links are closed
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            if (server != null) server.close();
+            for (Socket socket : accepted) socket.close();
+        } catch (IOException e) {
+            // Not receiving anyway
+        }
+        sender.execute(() -> {
+            for (Integer target : new ArrayList<>(links.keySet())) closeLink(target);
+        });
+        sender.shutdown();
+        try {
+            sender.awaitTermination(CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
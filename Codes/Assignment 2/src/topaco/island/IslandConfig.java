@@ -0,0 +1,145 @@
+package topaco.island;
+
+import topaco.batch.BatchConfig;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.*;
+
+// Settings of one island, or of a local launch of all of them: the island keys below, plus the BatchConfig keys
+// for the instance and the colony, each with a single value.
+public class IslandConfig {
+    public static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: java topaco.Islands [--config islands.properties] [key=value ...]",
+        "  islands=host:port,...  every island's address, the same list for all of them",
+        "  id=0                   this island's index in islands",
+        "  local=4                instead of islands: run that many islands on localhost, ports port..port+3;",
+        "                         without id, starts islands 1..3 as child processes and runs island 0 itself",
+        "  port=5100              first port of a local launch",
+        "  topology=RING          RING, FULL or STAR (island 0 is the hub)",
+        "  interval=10            iterations between migrations",
+        "  blend=0                fraction of the way trails move towards each received set; 0 sends solutions only",
+        "  wait=30                seconds to wait at start for the islands this one sends to, 0 not to wait",
+        "Colony keys as for topaco.Main, one value each: data (one file), seed, threads, cache, alpha, beta,",
+        "evaporation, q, iterations=1000, colony=20, rule, localSearch, timeLimit. Island k uses the k-th seed split",
+        "from seed.");
+
+    public final BatchConfig colony;
+    // -1 on a local launch without id
+    public final int id;
+    public final List<InetSocketAddress> addresses;
+    // Islands on localhost, 0 when addresses were given
+    public final int local;
+    public final Topology topology;
+    public final int interval;
+    public final double blend;
+    public final int waitSeconds;
+
+    private IslandConfig(BatchConfig colony, int id, List<InetSocketAddress> addresses, int local,
+                         Topology topology, int interval, double blend, int waitSeconds) {
+        this.colony = colony;
+        this.id = id;
+        this.addresses = addresses;
+        this.local = local;
+        this.topology = topology;
+        this.interval = interval;
+        this.blend = blend;
+        this.waitSeconds = waitSeconds;
+    }
+
+    public static IslandConfig parse(String[] args) throws IOException {
+        Properties defaults = new Properties();
+        defaults.setProperty("iterations", "1000");
+        defaults.setProperty("colony", "20");
+        Properties settings = BatchConfig.read(args, defaults);
+        String islands = take(settings, "islands");
+        String idValue = take(settings, "id");
+        String localValue = take(settings, "local");
+        String portValue = take(settings, "port");
+        String topologyValue = take(settings, "topology");
+        String intervalValue = take(settings, "interval");
+        String blendValue = take(settings, "blend");
+        String waitValue = take(settings, "wait");
+
+        if ((islands == null) == (localValue == null)) throw new IllegalArgumentException("Give islands or local");
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        int local = 0;
+        if (islands != null) {
+            for (String address : islands.split(",")) addresses.add(address(address.trim()));
+        } else {
+            local = number("local", localValue);
+            int port = number("port", portValue == null ? "5100" : portValue);
+            if (local < 1) throw new IllegalArgumentException("local must be positive, got " + local);
+            if (port < 1 || port + local - 1 > 65535) throw new IllegalArgumentException("Ports out of range");
+            for (int k = 0; k < local; k++) addresses.add(new InetSocketAddress("localhost", port + k));
+            // Local islands share the machine's cores
+            defaults.setProperty("threads",
+                String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() / local)));
+        }
+
+        int id = -1;
+        if (idValue != null) {
+            id = number("id", idValue);
+            if (id < 0 || id >= addresses.size()) {
+                throw new IllegalArgumentException("id must be within [0, " + addresses.size() + "), got " + id);
+            }
+        } else if (islands != null) {
+            throw new IllegalArgumentException("islands needs id");
+        }
+
+        Topology topology;
+        try {
+            topology = Topology.valueOf((topologyValue == null ? "RING" : topologyValue).toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("topology: unknown topology " + topologyValue);
+        }
+        int interval = number("interval", intervalValue == null ? "10" : intervalValue);
+        if (interval < 1) throw new IllegalArgumentException("interval must be positive, got " + interval);
+        double blend;
+        try {
+            blend = blendValue == null ? 0 : Double.parseDouble(blendValue);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("blend: not a number: " + blendValue);
+        }
+        if (blend < 0 || blend > 1) throw new IllegalArgumentException("blend must be within [0, 1], got " + blend);
+
+        int waitSeconds = number("wait", waitValue == null ? "30" : waitValue);
+        if (waitSeconds < 0) throw new IllegalArgumentException("wait must not be negative, got " + waitSeconds);
+
+        BatchConfig colony = BatchConfig.of(settings);
+        if (colony.files.size() != 1) throw new IllegalArgumentException("data must be one file");
+        if (colony.grid.size() != 1) throw new IllegalArgumentException("Colony keys take one value each");
+        if (colony.grid.get(0).colony < 1) throw new IllegalArgumentException("colony must be positive");
+        return new IslandConfig(colony, id, addresses, local, topology, interval, blend, waitSeconds);
+    }
+
+    // Island k's seed, the k-th split of the colony seed
+    public long seed(int island) {
+        SplittableRandom root = new SplittableRandom(colony.seed);
+        long seed = 0;
+        for (int k = 0; k <= island; k++) seed = root.split().nextLong();
+        return seed;
+    }
+
+    private static String take(Properties settings, String key) {
+        String value = settings.getProperty(key);
+        settings.remove(key);
+        return value;
+    }
+
+    private static InetSocketAddress address(String value) {
+        int colon = value.lastIndexOf(':');
+        if (colon <= 0) throw new IllegalArgumentException("islands: expected host:port, got " + value);
+        int port = number("islands", value.substring(colon + 1));
+        if (port < 1 || port > 65535) throw new IllegalArgumentException("islands: bad port in " + value);
+        return new InetSocketAddress(value.substring(0, colon), port);
+    }
+
+    private static int number(String key, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + ": not an integer: " + value);
+        }
+    }
+}
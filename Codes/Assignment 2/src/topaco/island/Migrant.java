@@ -0,0 +1,107 @@
+package topaco.island;
+
+import topaco.aco.ACO;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// One migration message: the sender's best solution and, when trails are blended, its trails in saveState form.
+// Big-endian on the wire: magic, problem, sender, iteration, the routes, then the trails or -1.
+class Migrant {
+    private static final int MAGIC = 0x49534C31; // "ISL1"
+
+    // Node count, vehicle count, tmax and beta of the sender; migrants for another problem are ignored
+    final double[] problem;
+    final int sender;
+    final int iteration;
+    final List<ACO.ResultPerVehicle> routes;
+    // Null when the sender does not blend trails
+    final double[] trails;
+
+    Migrant(double[] problem, int sender, int iteration, List<ACO.ResultPerVehicle> routes, double[] trails) {
+        this.problem = problem;
+        this.sender = sender;
+        this.iteration = iteration;
+        this.routes = routes;
+        this.trails = trails;
+    }
+
+    double score() {
+        double score = 0;
+        for (ACO.ResultPerVehicle vehicle : routes) score += vehicle.score;
+        return score;
+    }
+
+    double distance() {
+        double distance = 0;
+        for (ACO.ResultPerVehicle vehicle : routes) distance += vehicle.distance;
+        return distance;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        for (double value : problem) out.writeDouble(value);
+        out.writeInt(sender);
+        out.writeInt(iteration);
+        out.writeInt(routes.size());
+        for (ACO.ResultPerVehicle vehicle : routes) {
+            out.writeInt(vehicle.vehicleIndex);
+            out.writeInt(vehicle.route.length);
+            for (int node : vehicle.route) out.writeInt(node);
+            out.writeDouble(vehicle.score);
+            out.writeDouble(vehicle.distance);
+        }
+        if (trails == null) {
+            out.writeInt(-1);
+        } else {
+            ByteBuffer bytes = ByteBuffer.allocate(8 * trails.length);
+            bytes.asDoubleBuffer().put(trails);
+            out.writeInt(trails.length);
+            out.write(bytes.array());
+        }
+    }
+
+    // Anything from the network is checked against expected before it is trusted or sized: other problems and
+    // out-of-range lengths or nodes end the connection
+    static Migrant readFrom(DataInputStream in, double[] expected, int maxTrails) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not an island migrant");
+        double[] problem = new double[expected.length];
+        for (int i = 0; i < problem.length; i++) problem[i] = in.readDouble();
+        if (!Arrays.equals(problem, expected)) throw new IOException("Migrant for another problem or parameters");
+        int nodeCount = (int) expected[0];
+        int vehicleCount = (int) expected[1];
+
+        int sender = in.readInt();
+        int iteration = in.readInt();
+        int vehicles = in.readInt();
+        if (vehicles < 0 || vehicles > vehicleCount) throw new IOException("Bad vehicle count " + vehicles);
+        List<ACO.ResultPerVehicle> routes = new ArrayList<>(vehicles);
+        for (int v = 0; v < vehicles; v++) {
+            int vehicleIndex = in.readInt();
+            int length = in.readInt();
+            if (length < 0 || length > nodeCount + 1) throw new IOException("Bad route length " + length);
+            int[] route = new int[length];
+            for (int k = 0; k < length; k++) {
+                route[k] = in.readInt();
+                if (route[k] < 0 || route[k] >= nodeCount) throw new IOException("Bad node " + route[k]);
+            }
+            routes.add(new ACO.ResultPerVehicle(vehicleIndex, route, in.readDouble(), in.readDouble()));
+        }
+
+        int trailCount = in.readInt();
+        double[] trails = null;
+        if (trailCount >= 0) {
+            if (trailCount > maxTrails) throw new IOException("Bad trail count " + trailCount);
+            byte[] bytes = new byte[8 * trailCount];
+            in.readFully(bytes);
+            trails = new double[trailCount];
+            ByteBuffer.wrap(bytes).asDoubleBuffer().get(trails);
+        }
+        return new Migrant(problem, sender, iteration, routes, trails);
+    }
+}
@@ -0,0 +1,36 @@
+package topaco.island;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Which islands each island sends its migrants to. Islands accept migrants from anyone.
+public enum Topology {
+    // Island k sends to island k + 1, the last one to island 0
+    RING,
+    // Every island sends to every other one
+    FULL,
+    // Island 0 sends to all the others, and they send to island 0 only
+    STAR;
+
+    public List<Integer> targets(int island, int islands) {
+        List<Integer> targets = new ArrayList<>();
+        switch (this) {
+            case RING:
+                if (islands > 1) targets.add((island + 1) % islands);
+                break;
+            case FULL:
+                for (int k = 0; k < islands; k++) {
+                    if (k != island) targets.add(k);
+                }
+                break;
+            case STAR:
+                if (island == 0) {
+                    for (int k = 1; k < islands; k++) targets.add(k);
+                } else {
+                    targets.add(0);
+                }
+                break;
+        }
+        return targets;
+    }
+}
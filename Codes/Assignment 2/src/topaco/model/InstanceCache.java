@@ -0,0 +1,145 @@
+package topaco.model;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Parses each TOP file once and hands the same ProblemInstance to every caller; instances are immutable, so they
+// can be shared between runs and threads. Entries are keyed by canonical path and replaced when the file's size
+// or modification time changes. With a directory, the node columns are also stored there in a binary file that
+// is memory-mapped on a later cold start instead of parsing the text again.
+public class InstanceCache {
+    private static final int MAGIC = 0x544F5031; // "TOP1"
+    private static final InstanceCache SHARED = new InstanceCache(directoryProperty());
+
+    private final File directory;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // One parsed version of a file; the first caller loads it while later callers for the same version wait
+    private static class Entry {
+        final long size;
+        final long modified;
+        private ProblemInstance instance;
+
+        Entry(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        synchronized ProblemInstance get(InstanceCache cache, File file) throws IOException {
+            if (instance == null) instance = cache.load(file, size, modified);
+            return instance;
+        }
+    }
+
+    // directory may be null to keep instances in memory only
+    public InstanceCache(File directory) {
+        this.directory = directory;
+    }
+
+    // The process-wide cache, with the directory given by -Dinstance.cache if any
+    public static InstanceCache shared() {
+        return SHARED;
+    }
+
+    private static File directoryProperty() {
+        String path = System.getProperty("instance.cache");
+        return path == null || path.isEmpty() ? null : new File(path);
+    }
+
+    // Unlike new ProblemInstance(path), a file without nodes is an error and is not cached
+    public ProblemInstance get(String filePath) throws IOException {
+        File file = new File(filePath).getCanonicalFile();
+        if (!file.isFile()) throw new FileNotFoundException(filePath);
+        long size = file.length();
+        long modified = file.lastModified();
+
+        Entry entry = entries.compute(file.getPath(), (path, old) ->
+            old != null && old.size == size && old.modified == modified ? old : new Entry(size, modified));
+        return entry.get(this, file);
+    }
+
+    private ProblemInstance load(File file, long size, long modified) throws IOException {
+        File binary = directory == null ? null
+            : new File(directory, file.getName() + "-" + Integer.toHexString(file.getPath().hashCode()) + ".bin");
+        if (binary != null) {
+            ProblemInstance cached = readBinary(binary, size, modified);
+            if (cached != null) return cached;
+        }
+
+        ProblemInstance instance = new ProblemInstance(file.getPath());
+        if (instance.getNodeCount() == 0) throw new IOException("No nodes read from " + file);
+        if (binary != null) {
+            try {
+                writeBinary(binary, instance, size, modified);
+            } catch (IOException e) {
+                System.err.println("Could not cache " + file + ": " + e.getMessage());
+            }
+        }
+        return instance;
+    }
+
+    // ===================================================== Binary format =====================================================
+    // Little-endian: magic, source size and modification time, vehicle count, tmax, node count, then the x, y
+    // and score columns.
+
+    // Null when the file is missing, was written for another version of the source, or is truncated
+    private static ProblemInstance readBinary(File binary, long size, long modified) throws IOException {
+        if (!binary.isFile()) return null;
+        try (FileChannel channel = FileChannel.open(binary.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC || buffer.getLong() != size || buffer.getLong() != modified) return null;
+
+            int vehicleCount = buffer.getInt();
+            double tmax = buffer.getDouble();
+            int n = buffer.getInt();
+            double[] xs = new double[n];
+            double[] ys = new double[n];
+            int[] scores = new int[n];
+            buffer.asDoubleBuffer().get(xs);
+            buffer.position(buffer.position() + 8 * n);
+            buffer.asDoubleBuffer().get(ys);
+            buffer.position(buffer.position() + 8 * n);
+            buffer.asIntBuffer().get(scores);
+            return new ProblemInstance(vehicleCount, tmax, xs, ys, scores);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            return null;
+        }
+    }
+
+    // Written to a temporary file first, so readers never see a partial file
+    private static void writeBinary(File binary, ProblemInstance instance, long size, long modified) throws IOException {
+        int n = instance.getNodeCount();
+        ByteBuffer bytes = ByteBuffer.allocate(36 + 20 * n).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.putInt(MAGIC).putLong(size).putLong(modified);
+        bytes.putInt(instance.getVehicleCount()).putDouble(instance.getTmax()).putInt(n);
+        bytes.asDoubleBuffer().put(instance.getXs()).put(instance.getYs());
+        bytes.position(bytes.position() + 16 * n);
+        bytes.asIntBuffer().put(instance.getScores());
+        bytes.position(bytes.position() + 4 * n);
+        bytes.flip();
+
+        Files.createDirectories(binary.getParentFile().toPath());
+        File temporary = File.createTempFile(binary.getName(), ".tmp", binary.getParentFile());
+        try {
+            try (FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE)) {
+                while (bytes.hasRemaining()) channel.write(bytes);
+            }
+            try {
+                Files.move(temporary.toPath(), binary.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temporary.toPath(), binary.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+}
@@ -4,16 +4,64 @@ import java.io.*;
 import java.util.*;
 
 public class ProblemInstance {
-    private int vehicleCount;
-    private double tmax;
-    private List<Node> nodes;
+    // Above this many nodes distances are computed on demand instead of tabulated
+    public static final int DENSE_LIMIT = 5000;
+
+    private final int vehicleCount;
+    private final double tmax;
+    private final List<Node> nodes;
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] scores;
+    // Row-major n x n Euclidean distances, filled once after reading; null above DENSE_LIMIT
+    private final double[] distances;
 
     public ProblemInstance(String filePath) {
-        nodes = new ArrayList<>();
-        readInstance(filePath);
+        this(readInstance(filePath));
+    }
+
+    private ProblemInstance(Contents contents) {
+        this(contents.vehicleCount, contents.tmax, contents.xs, contents.ys, contents.scores);
+    }
+
+    // From already parsed arrays, as read back by InstanceCache; the arrays are kept, not copied
+    public ProblemInstance(int vehicleCount, double tmax, double[] xs, double[] ys, int[] scores) {
+        this.vehicleCount = vehicleCount;
+        this.tmax = tmax;
+        this.xs = xs;
+        this.ys = ys;
+        this.scores = scores;
+        List<Node> nodeList = new ArrayList<>(xs.length);
+        for (int i = 0; i < xs.length; i++) {
+            nodeList.add(new Node(xs[i], ys[i], scores[i]));
+        }
+        this.nodes = Collections.unmodifiableList(nodeList);
+        this.distances = xs.length <= DENSE_LIMIT ? computeDistances(xs, ys) : null;
+    }
+
+    // The header values and node columns of a file, before the instance is built
+    private static class Contents {
+        int vehicleCount;
+        double tmax;
+        double[] xs = new double[16];
+        double[] ys = new double[16];
+        int[] scores = new int[16];
+        int count;
+
+        void add(double x, double y, int score) {
+            if (count == xs.length) {
+                xs = Arrays.copyOf(xs, 2 * count);
+                ys = Arrays.copyOf(ys, 2 * count);
+                scores = Arrays.copyOf(scores, 2 * count);
+            }
+            xs[count] = x;
+            ys[count] = y;
+            scores[count++] = score;
+        }
     }
 
-    private void readInstance(String filePath) {
+    private static Contents readInstance(String filePath) {
+        Contents contents = new Contents();
         try (Scanner scanner = new Scanner(new File(filePath))) {
             int n = 0;
             while (scanner.hasNext()) {
@@ -21,25 +69,44 @@ public class ProblemInstance {
                 if (line.startsWith("n")) {
                     n = Integer.parseInt(line.split("\\s+")[1]);
                 } else if (line.startsWith("m")) {
-                    vehicleCount = Integer.parseInt(line.split("\\s+")[1]);
+                    contents.vehicleCount = Integer.parseInt(line.split("\\s+")[1]);
                 } else if (line.startsWith("tmax")) {
-                    tmax = Double.parseDouble(line.split("\\s+")[1]);
+                    contents.tmax = Double.parseDouble(line.split("\\s+")[1]);
                 } else if (!line.isEmpty() && Character.isDigit(line.charAt(0))) {
                     String[] parts = line.split("\\s+");
                     double x = Double.parseDouble(parts[0]);
                     double y = Double.parseDouble(parts[1]);
                     int score = Integer.parseInt(parts[2]);
-                    nodes.add(new Node(x, y, score));
+                    contents.add(x, y, score);
                 }
             }
 
-            if (nodes.size() != n) {
-                System.err.println("Warning: node count mismatch (expected " + n + ", got " + nodes.size() + ")");
+            if (contents.count != n) {
+                System.err.println("Warning: node count mismatch (expected " + n + ", got " + contents.count + ")");
             }
 
         } catch (Exception e) {
             System.err.println("Failed to read file: " + e.getMessage());
         }
+        contents.xs = Arrays.copyOf(contents.xs, contents.count);
+        contents.ys = Arrays.copyOf(contents.ys, contents.count);
+        contents.scores = Arrays.copyOf(contents.scores, contents.count);
+        return contents;
+    }
+
+    private static double[] computeDistances(double[] xs, double[] ys) {
+        int n = xs.length;
+        double[] distances = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double dx = xs[i] - xs[j];
+                double dy = ys[i] - ys[j];
+                double d = Math.sqrt(dx * dx + dy * dy);
+                distances[i * n + j] = d;
+                distances[j * n + i] = d;
+            }
+        }
+        return distances;
     }
 
     public int getVehicleCount() {
@@ -59,6 +126,48 @@ public class ProblemInstance {
     }
 
     public int getScore(int index) {
-        return nodes.get(index).getScore();
+        return scores[index];
+    }
+
+    public int getNodeCount() {
+        return xs.length;
+    }
+
+    public double getDistance(int from, int to) {
+        if (distances != null) return distances[from * xs.length + to];
+        double dx = xs[from] - xs[to];
+        double dy = ys[from] - ys[to];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    public boolean hasDistanceTable() {
+        return distances != null;
+    }
+
+    // The flat table itself, indexed from * getNodeCount() + to; callers must not modify it.
+    // Null when the instance is larger than DENSE_LIMIT.
+    public double[] getDistances() {
+        return distances;
+    }
+
+    // Node coordinates as flat arrays; callers must not modify them
+    public double[] getXs() {
+        return xs;
+    }
+
+    public double[] getYs() {
+        return ys;
+    }
+
+    public int[] getScores() {
+        return scores;
+    }
+
+    // Hash of the coordinates, scores, fleet and tmax; checkpoints keep it to tell instances of one size apart
+    public int contentHash() {
+        int hash = 31 * vehicleCount + Double.hashCode(tmax);
+        hash = 31 * hash + Arrays.hashCode(xs);
+        hash = 31 * hash + Arrays.hashCode(ys);
+        return 31 * hash + Arrays.hashCode(scores);
     }
 }
@@ -0,0 +1,46 @@
+package topaco.utils;
+
+// Array loops of the ant's selection step and the pheromone rescaling. This is the scalar version; when the
+// JDK's incubator Vector API is available, INSTANCE is the SIMD subclass from src-vector instead (see ReadMe).
+public class ArrayKernels {
+    public static final ArrayKernels INSTANCE = load();
+
+    // out[j] = a[offset + j] * b[offset + j] for j in [from, to), or 0 where skipA[j] or skipB[j] is set
+    public void maskedProducts(double[] a, double[] b, int offset, boolean[] skipA, boolean[] skipB,
+                               double[] out, int from, int to) {
+        for (int j = from; j < to; j++) {
+            out[j] = skipA[j] || skipB[j] ? 0.0 : a[offset + j] * b[offset + j];
+        }
+    }
+
+    // In place running sum over [from, to); returns the total
+    public double prefixSum(double[] values, int from, int to) {
+        double sum = 0.0;
+        for (int j = from; j < to; j++) {
+            sum += values[j];
+            values[j] = sum;
+        }
+        return sum;
+    }
+
+    public void multiply(double[] values, double factor) {
+        for (int j = 0; j < values.length; j++) {
+            values[j] *= factor;
+        }
+    }
+
+    public boolean isVectorized() {
+        return false;
+    }
+
+    // The vector class is only compiled with --add-modules jdk.incubator.vector and only links when the module
+    // is present at run time too; anything else leaves the scalar kernels in place.
+    private static ArrayKernels load() {
+        if (Boolean.getBoolean("kernels.scalar")) return new ArrayKernels();
+        try {
+            return (ArrayKernels) Class.forName("topaco.utils.VectorArrayKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return new ArrayKernels();
+        }
+    }
+}
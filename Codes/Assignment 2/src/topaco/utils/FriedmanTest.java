@@ -0,0 +1,181 @@
+package topaco.utils;
+
+import java.util.Arrays;
+
+// Friedman's rank test over a blocks x candidates cost matrix, lower costs being better, with the Conover post-hoc
+// comparison F-Race uses to drop candidates once the test rejects "all candidates perform alike". Every block (one
+// instance and seed) must hold a cost for every candidate; ties share their average rank.
+public class FriedmanTest {
+    private final int blocks;
+    private final int candidates;
+    private final double[] rankSums;
+    // Sum of all squared ranks
+    private final double rankSquares;
+
+    public FriedmanTest(double[][] costs) {
+        blocks = costs.length;
+        candidates = blocks == 0 ? 0 : costs[0].length;
+        rankSums = new double[candidates];
+        double squares = 0;
+        Integer[] order = new Integer[candidates];
+        for (double[] block : costs) {
+            if (block.length != candidates) throw new IllegalArgumentException("Blocks differ in length");
+            for (int j = 0; j < candidates; j++) order[j] = j;
+            Arrays.sort(order, (a, b) -> Double.compare(block[a], block[b]));
+            for (int start = 0; start < candidates; ) {
+                int end = start + 1;
+                while (end < candidates && block[order[end]] == block[order[start]]) end++;
+                // Positions start..end-1 hold ranks start+1..end
+                double rank = (start + end + 1) / 2.0;
+                for (int k = start; k < end; k++) {
+                    rankSums[order[k]] += rank;
+                    squares += rank * rank;
+                }
+                start = end;
+            }
+        }
+        rankSquares = squares;
+    }
+
+    public double[] getRankSums() {
+        return rankSums.clone();
+    }
+
+    // Lowest rank sum; ties go to the lower index
+    public int best() {
+        int best = 0;
+        for (int j = 1; j < candidates; j++) {
+            if (rankSums[j] < rankSums[best]) best = j;
+        }
+        return best;
+    }
+
+    // Probability of a Friedman statistic at least this large if all candidates performed alike
+    public double pValue() {
+        if (blocks < 2 || candidates < 2) return 1;
+        double c = blocks * candidates * (candidates + 1) * (candidates + 1) / 4.0;
+        if (rankSquares - c <= 0) return 1; // Every block is one big tie
+        double mean = blocks * (candidates + 1) / 2.0;
+        double spread = 0;
+        for (double sum : rankSums) spread += (sum - mean) * (sum - mean);
+        double statistic = (candidates - 1) * spread / (rankSquares - c);
+        return upperGamma((candidates - 1) / 2.0, statistic / 2);
+    }
+
+    // Candidates whose rank sum is significantly worse than the best one's at this confidence. Nothing is worse
+    // unless the Friedman test rejects first.
+    public boolean[] worseThanBest(double confidence) {
+        boolean[] worse = new boolean[candidates];
+        double alpha = 1 - confidence;
+        if (pValue() >= alpha) return worse;
+
+        int best = best();
+        double sumSquares = 0;
+        for (double sum : rankSums) sumSquares += sum * sum;
+        double df = (blocks - 1) * (candidates - 1);
+        double error = Math.sqrt(2 * blocks * (rankSquares - sumSquares / blocks) / df);
+        for (int j = 0; j < candidates; j++) {
+            double gap = rankSums[j] - rankSums[best];
+            if (gap <= 0) continue;
+            // Identical rankings in every block leave no error: any gap is then systematic
+            if (error == 0) {
+                worse[j] = true;
+            } else {
+                double t = gap / error;
+                worse[j] = incompleteBeta(df / (df + t * t), df / 2, 0.5) < alpha;
+            }
+        }
+        return worse;
+    }
+
+    // ===================================================== Special functions =====================================================
+    // As in Numerical Recipes: Lanczos log-gamma, and the series / continued fraction forms of the incomplete
+    // gamma and beta functions, each used where it converges fast.
+
+    private static final double EPSILON = 1e-14;
+    private static final double TINY = 1e-300;
+    private static final int MAX_TERMS = 1000;
+    private static final double[] LANCZOS = {
+        0.99999999999980993, 676.5203681218851, -1259.1392167224028, 771.32342877765313,
+        -176.61502916214059, 12.507343278686905, -0.13857109526572012, 9.9843695780195716e-6,
+        1.5056327351493116e-7
+    };
+
+    private static double logGamma(double x) {
+        x -= 1;
+        double sum = LANCZOS[0];
+        for (int i = 1; i < LANCZOS.length; i++) sum += LANCZOS[i] / (x + i);
+        double t = x + LANCZOS.length - 1.5;
+        return 0.5 * Math.log(2 * Math.PI) + (x + 0.5) * Math.log(t) - t + Math.log(sum);
+    }
+
+    // Regularized upper incomplete gamma Q(a, x); the chi-square tail with k degrees of freedom is Q(k/2, x/2)
+    private static double upperGamma(double a, double x) {
+        if (x <= 0) return 1;
+        double front = Math.exp(-x + a * Math.log(x) - logGamma(a));
+        if (x < a + 1) {
+            double term = 1 / a;
+            double sum = term;
+            for (int n = 1; n < MAX_TERMS && Math.abs(term) > Math.abs(sum) * EPSILON; n++) {
+                term *= x / (a + n);
+                sum += term;
+            }
+            return Math.max(0, 1 - sum * front);
+        }
+        double b = x + 1 - a;
+        double c = 1 / TINY;
+        double d = 1 / b;
+        double h = d;
+        for (int n = 1; n < MAX_TERMS; n++) {
+            double an = -n * (n - a);
+            b += 2;
+            d = an * d + b;
+            if (Math.abs(d) < TINY) d = TINY;
+            c = b + an / c;
+            if (Math.abs(c) < TINY) c = TINY;
+            d = 1 / d;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < EPSILON) break;
+        }
+        return front * h;
+    }
+
+    // Regularized incomplete beta I_x(a, b); the two-sided Student t tail with df degrees of freedom is
+    // I_{df/(df+t^2)}(df/2, 1/2)
+    private static double incompleteBeta(double x, double a, double b) {
+        if (x <= 0) return 0;
+        if (x >= 1) return 1;
+        double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+        if (x < (a + 1) / (a + b + 2)) return front * betaFraction(x, a, b) / a;
+        return 1 - front * betaFraction(1 - x, b, a) / b;
+    }
+
+    private static double betaFraction(double x, double a, double b) {
+        double c = 1;
+        double d = 1 - (a + b) * x / (a + 1);
+        if (Math.abs(d) < TINY) d = TINY;
+        d = 1 / d;
+        double h = d;
+        for (int m = 1; m < MAX_TERMS; m++) {
+            int m2 = 2 * m;
+            double even = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+            d = 1 + even * d;
+            if (Math.abs(d) < TINY) d = TINY;
+            c = 1 + even / c;
+            if (Math.abs(c) < TINY) c = TINY;
+            d = 1 / d;
+            h *= d * c;
+            double odd = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+            d = 1 + odd * d;
+            if (Math.abs(d) < TINY) d = TINY;
+            c = 1 + odd / c;
+            if (Math.abs(c) < TINY) c = TINY;
+            d = 1 / d;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < EPSILON) break;
+        }
+        return h;
+    }
+}
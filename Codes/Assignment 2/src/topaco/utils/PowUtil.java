@@ -0,0 +1,20 @@
+package topaco.utils;
+
+public class PowUtil {
+    // Math.pow with the ACO's usual exponents (small whole numbers) done as plain multiplications
+    public static double pow(double base, double exponent) {
+        if (exponent == 1.0) return base;
+        if (exponent == 2.0) return base * base;
+        if (exponent == 0.0) return 1.0;
+        if (exponent == 3.0) return base * base * base;
+        if (exponent == 4.0) {
+            double square = base * base;
+            return square * square;
+        }
+        if (exponent == 5.0) {
+            double square = base * base;
+            return square * square * base;
+        }
+        return Math.pow(base, exponent);
+    }
+}
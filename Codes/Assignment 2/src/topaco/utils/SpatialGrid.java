@@ -0,0 +1,115 @@
+package topaco.utils;
+
+import java.util.Arrays;
+
+// Uniform grid over the node coordinates, stored as flat cell buckets, for k-nearest-neighbor queries.
+public class SpatialGrid {
+    private final double[] xs;
+    private final double[] ys;
+    private final double minX;
+    private final double minY;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int dim;
+    private final int[] cellStart;
+    private final int[] cellItems;
+
+    public SpatialGrid(double[] xs, double[] ys) {
+        this.xs = xs;
+        this.ys = ys;
+        int n = xs.length;
+
+        double loX = Double.MAX_VALUE, loY = Double.MAX_VALUE, hiX = -Double.MAX_VALUE, hiY = -Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            loX = Math.min(loX, xs[i]);
+            hiX = Math.max(hiX, xs[i]);
+            loY = Math.min(loY, ys[i]);
+            hiY = Math.max(hiY, ys[i]);
+        }
+        minX = n == 0 ? 0 : loX;
+        minY = n == 0 ? 0 : loY;
+
+        // Roughly two nodes per cell
+        dim = Math.max(1, (int) Math.sqrt(n / 2.0));
+        cellWidth = Math.max((hiX - loX) / dim, 1e-9);
+        cellHeight = Math.max((hiY - loY) / dim, 1e-9);
+
+        cellStart = new int[dim * dim + 1];
+        int[] cellOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            cellOf[i] = cell(column(xs[i]), row(ys[i]));
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int c = 0; c < dim * dim; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        cellItems = new int[n];
+        int[] fill = Arrays.copyOf(cellStart, dim * dim);
+        for (int i = 0; i < n; i++) {
+            cellItems[fill[cellOf[i]]++] = i;
+        }
+    }
+
+    // Returns the indices of the k points closest to point index (excluding itself), nearest first.
+    public int[] nearest(int index, int k) {
+        k = Math.min(k, xs.length - 1);
+        int[] found = new int[Math.max(k, 0)];
+        double[] foundDist = new double[found.length];
+        if (k <= 0) return found;
+
+        int count = 0;
+        int cx = column(xs[index]);
+        int cy = row(ys[index]);
+        double ringWidth = Math.min(cellWidth, cellHeight);
+
+        for (int r = 0; r < dim; r++) {
+            for (int gx = cx - r; gx <= cx + r; gx++) {
+                if (gx < 0 || gx >= dim) continue;
+                boolean edgeColumn = gx == cx - r || gx == cx + r;
+                for (int gy = cy - r; gy <= cy + r; gy += edgeColumn ? 1 : 2 * r) {
+                    if (gy < 0 || gy >= dim) continue;
+                    int c = cell(gx, gy);
+                    for (int p = cellStart[c]; p < cellStart[c + 1]; p++) {
+                        int other = cellItems[p];
+                        if (other == index) continue;
+                        double dx = xs[other] - xs[index];
+                        double dy = ys[other] - ys[index];
+                        count = offer(found, foundDist, count, other, dx * dx + dy * dy);
+                    }
+                }
+            }
+            // Anything outside the rings scanned so far is at least r full cells away.
+            double reach = r * ringWidth;
+            if (count == k && foundDist[k - 1] <= reach * reach) break;
+        }
+        return found;
+    }
+
+    // Keeps found[] sorted by distance, dropping the farthest entry once it holds k points.
+    private static int offer(int[] found, double[] foundDist, int count, int point, double dist) {
+        int k = found.length;
+        if (count == k && dist >= foundDist[k - 1]) return count;
+
+        int pos = count == k ? k - 1 : count++;
+        while (pos > 0 && foundDist[pos - 1] > dist) {
+            found[pos] = found[pos - 1];
+            foundDist[pos] = foundDist[pos - 1];
+            pos--;
+        }
+        found[pos] = point;
+        foundDist[pos] = dist;
+        return count;
+    }
+
+    private int column(double x) {
+        return Math.min(dim - 1, (int) ((x - minX) / cellWidth));
+    }
+
+    private int row(double y) {
+        return Math.min(dim - 1, (int) ((y - minY) / cellHeight));
+    }
+
+    private int cell(int gx, int gy) {
+        return gy * dim + gx;
+    }
+}
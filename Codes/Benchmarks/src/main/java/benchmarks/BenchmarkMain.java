@@ -0,0 +1,39 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.module.ModuleFinder;
+import java.util.ArrayList;
+import java.util.List;
+
+// JMH entry point that always attaches the GC profiler, so every result reports gc.alloc.rate.norm next to ops/s.
+// Any other JMH command line option is passed through unchanged. Forks get the incubator Vector API module when the
+// JDK has it, so the SIMD kernels are measured; add -jvmArgsAppend -Dkernels.scalar=true to measure the scalar ones.
+public class BenchmarkMain {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+            || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        List<String> jvmArgs = new ArrayList<>(commandLine.getJvmArgsAppend().orElse(List.of()));
+        if (ModuleFinder.ofSystem().find(VECTOR_MODULE).isPresent()) {
+            jvmArgs.add("--add-modules=" + VECTOR_MODULE);
+        }
+
+        Options options = new OptionsBuilder()
+            .parent(commandLine)
+            .addProfiler(GCProfiler.class)
+            .jvmArgsAppend(jvmArgs.toArray(new String[0]))
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Resolves benchmark @Param values to instance files. Plain names refer to the bundled Data/ and Data_TOP/
+// files under -Ddata.root (default: the Codes directory); "synthetic-N" writes a seeded random instance of N nodes.
+public final class Instances {
+    private static final long SYNTHETIC_SEED = 42;
+    private static final Map<String, String> SYNTHETIC = new ConcurrentHashMap<>();
+
+    private Instances() {
+    }
+
+    public static String tspFile(String spec) {
+        if (spec.startsWith("synthetic-")) {
+            return SYNTHETIC.computeIfAbsent("tsp-" + spec, key -> writeTsp(size(spec)));
+        }
+        return root().resolve("Assignment 1").resolve("Data").resolve(spec).toString();
+    }
+
+    public static String topFile(String spec) {
+        if (spec.startsWith("synthetic-")) {
+            return SYNTHETIC.computeIfAbsent("top-" + spec, key -> writeTop(size(spec)));
+        }
+        return root().resolve("Assignment 2").resolve("Data_TOP").resolve(spec).toString();
+    }
+
+    private static Path root() {
+        return Paths.get(System.getProperty("data.root", ".."));
+    }
+
+    private static int size(String spec) {
+        return Integer.parseInt(spec.substring("synthetic-".length()));
+    }
+
+    private static String writeTsp(int n) {
+        Random random = new Random(SYNTHETIC_SEED);
+        return write("tsp-" + n, ".tsp", out -> {
+            out.println("NAME : synthetic" + n);
+            out.println("TYPE : TSP");
+            out.println("DIMENSION : " + n);
+            out.println("EDGE_WEIGHT_TYPE : EUC_2D");
+            out.println("NODE_COORD_SECTION");
+            for (int i = 1; i <= n; i++) {
+                out.println(i + " " + random.nextInt(1_000_000) + " " + random.nextInt(1_000_000));
+            }
+            out.println("EOF");
+        });
+    }
+
+    // Same layout as the Chao et al. files: start depot first, end depot last, both at the centre with score 0
+    private static String writeTop(int n) {
+        Random random = new Random(SYNTHETIC_SEED);
+        return write("top-" + n, ".txt", out -> {
+            out.println("n " + n);
+            out.println("m 4");
+            out.println("tmax 100.0");
+            out.println("50.000\t50.000\t0");
+            for (int i = 1; i < n - 1; i++) {
+                out.printf("%.3f\t%.3f\t%d%n", random.nextDouble() * 100, random.nextDouble() * 100, 1 + random.nextInt(50));
+            }
+            out.println("50.000\t50.000\t0");
+        });
+    }
+
+    private interface Content {
+        void write(PrintWriter out);
+    }
+
+    private static String write(String prefix, String suffix, Content content) {
+        try {
+            Path file = Files.createTempFile(prefix, suffix);
+            file.toFile().deleteOnExit();
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+                content.write(out);
+            }
+            return file.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package topaco.aco;
+
+import benchmarks.Instances;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import topaco.model.ProblemInstance;
+
+import java.util.List;
+import java.util.Random;
+
+// Hot paths of the TOP ant colony. Lives in topaco.aco so it can call the package-private selectNextNode.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ACOBenchmark {
+    static final int ITERATIONS = 10;
+    static final int COLONY_SIZE = 32;
+
+    // Same parameters as the GUI defaults
+    static final double ALPHA = 1.0;
+    static final double BETA = 5.0;
+    static final double EVAPORATION_RATE = 0.5;
+    static final double Q = 100.0;
+
+    @Param({"p3.2.a.txt", "p3.4.t.txt", "p7.2.a.txt", "p7.4.q.txt", "synthetic-500", "synthetic-2000"})
+    public String instance;
+
+    private ProblemInstance problem;
+    private PheromoneMatrix pheromones;
+    private HeuristicMatrix heuristics;
+    private Random random;
+    private int[] route;
+    private Ant ant;
+    private boolean[] noneVisited;
+
+    @Setup
+    public void setUp() {
+        problem = new ProblemInstance(Instances.topFile(instance));
+        pheromones = new PheromoneMatrix(problem.getNodeCount());
+        pheromones.updateWeights(ALPHA);
+        heuristics = new HeuristicMatrix(problem, BETA);
+        random = new Random(42);
+
+        noneVisited = new boolean[problem.getNodeCount()];
+        ant = new Ant(problem, pheromones, heuristics, random);
+        ant.constructRoute(new boolean[noneVisited.length]);
+        route = ant.copyRoute();
+    }
+
+    // A reused ant with nothing taken by other vehicles, so every run sees the same open nodes
+    @Benchmark
+    public Ant constructRoute() {
+        ant.reset();
+        ant.constructRoute(noneVisited);
+        int[] taken = ant.getRoute();
+        for (int i = 0; i < ant.getRouteLength(); i++) {
+            noneVisited[taken[i]] = false;
+        }
+        return ant;
+    }
+
+    // One roulette-wheel step from the depot over every customer
+    @Benchmark
+    public int selectNextNode() {
+        ant.reset();
+        return ant.selectNextNode(0, noneVisited);
+    }
+
+    // O(1) apart from the renormalization every few hundred calls, which is amortized into the score
+    @Benchmark
+    public PheromoneMatrix evaporate() {
+        pheromones.evaporate(EVAPORATION_RATE);
+        return pheromones;
+    }
+
+    // One ant's deposit followed by the tau^alpha refresh, as at the end of an iteration
+    @Benchmark
+    public PheromoneMatrix depositRoute() {
+        for (int i = 0; i < route.length - 1; i++) {
+            pheromones.addPheromone(route[i], route[i + 1], 1e-9);
+        }
+        pheromones.updateWeights(ALPHA);
+        return pheromones;
+    }
+
+    @Benchmark
+    public HeuristicMatrix heuristicMatrix() {
+        return new HeuristicMatrix(problem, BETA);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public List<ACO.ResultPerVehicle> runForResult() {
+        return new ACO(problem, new Random(42), ALPHA, BETA, EVAPORATION_RATE, Q).runForResult(ITERATIONS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public List<ACO.ResultPerVehicle> runColony() {
+        return new ACO(problem, new Random(42), ALPHA, BETA, EVAPORATION_RATE, Q).runColony(ITERATIONS, COLONY_SIZE);
+    }
+
+    // Same colony with every solution improved by LocalSearch; compare the best score per second, not ops/s alone
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public List<ACO.ResultPerVehicle> runColonyWithLocalSearch() {
+        ACO aco = new ACO(problem, new Random(42), ALPHA, BETA, EVAPORATION_RATE, Q);
+        aco.setLocalSearch(true);
+        return aco.runColony(ITERATIONS, COLONY_SIZE);
+    }
+}
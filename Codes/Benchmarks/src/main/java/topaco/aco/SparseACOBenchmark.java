@@ -0,0 +1,74 @@
+package topaco.aco;
+
+import benchmarks.Instances;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import topaco.model.ProblemInstance;
+
+import java.util.List;
+import java.util.Random;
+
+// Candidate-list trails on instances too large for the n x n tables.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SparseACOBenchmark {
+    static final int ITERATIONS = 5;
+    static final int COLONY_SIZE = 16;
+
+    @Param({"synthetic-2000", "synthetic-20000", "synthetic-50000"})
+    public String instance;
+
+    @Param({"20"})
+    public int candidates;
+
+    private ProblemInstance problem;
+    private CandidateLists lists;
+    private SparsePheromoneMatrix pheromones;
+    private Ant ant;
+    private boolean[] noneVisited;
+
+    @Setup
+    public void setUp() {
+        problem = new ProblemInstance(Instances.topFile(instance));
+        lists = new CandidateLists(problem, candidates, ACOBenchmark.BETA);
+        pheromones = new SparsePheromoneMatrix(lists);
+        pheromones.updateWeights(ACOBenchmark.ALPHA);
+        noneVisited = new boolean[problem.getNodeCount()];
+        ant = new Ant(problem, pheromones, new Random(42));
+    }
+
+    @Benchmark
+    public Ant constructRoute() {
+        ant.reset();
+        ant.constructRoute(noneVisited);
+        int[] taken = ant.getRoute();
+        for (int i = 0; i < ant.getRouteLength(); i++) {
+            noneVisited[taken[i]] = false;
+        }
+        return ant;
+    }
+
+    @Benchmark
+    public CandidateLists candidateLists() {
+        return new CandidateLists(problem, candidates, ACOBenchmark.BETA);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public List<ACO.ResultPerVehicle> runColony() {
+        return new ACO(problem, new Random(42), ACOBenchmark.ALPHA, ACOBenchmark.BETA,
+            ACOBenchmark.EVAPORATION_RATE, ACOBenchmark.Q, candidates).runColony(ITERATIONS, COLONY_SIZE);
+    }
+}
@@ -0,0 +1,48 @@
+package topaco.model;
+
+import benchmarks.Instances;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ProblemInstanceBenchmark {
+    @Param({"p3.4.t.txt", "p7.4.q.txt", "synthetic-2000", "synthetic-50000"})
+    public String instance;
+
+    private String path;
+    private File cacheDirectory;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = Instances.topFile(instance);
+        cacheDirectory = Files.createTempDirectory("top-cache").toFile();
+        new InstanceCache(cacheDirectory).get(path);
+    }
+
+    @Benchmark
+    public ProblemInstance load() {
+        return new ProblemInstance(path);
+    }
+
+    // A cold start from the binary file an earlier InstanceCache left behind
+    @Benchmark
+    public ProblemInstance loadCached() throws IOException {
+        return new InstanceCache(cacheDirectory).get(path);
+    }
+}
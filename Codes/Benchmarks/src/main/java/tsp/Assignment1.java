@@ -0,0 +1,99 @@
+package tsp;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.List;
+
+// Assignment 1 lives in the default package, which named packages cannot import and JMH cannot generate
+// benchmarks into, so its classes are reached through method handles resolved once at class load.
+final class Assignment1 {
+    private static final MethodHandle NEW_INSTANCE;
+    private static final MethodHandle NEW_CACHE;
+    private static final MethodHandle CACHE_GET;
+    private static final MethodHandle NEW_SOLVER;
+    private static final MethodHandle SET_CANDIDATE_LIST_SIZE;
+    private static final MethodHandle SIMULATED_ANNEALING;
+    private static final MethodHandle SIMULATED_ANNEALING_DELTA;
+    private static final MethodHandle TABU_SEARCH;
+    private static final MethodHandle TABU_SEARCH_DELTA;
+
+    static {
+        try {
+            Class<?> instance = Class.forName("TSPInstance");
+            Class<?> solver = Class.forName("TSPSolver");
+            Class<?> cache = Class.forName("InstanceCache");
+            NEW_INSTANCE = constructor(instance, String.class);
+            NEW_CACHE = constructor(cache, File.class);
+            CACHE_GET = method(cache, "get", String.class);
+            NEW_SOLVER = constructor(solver, instance, long.class);
+            SET_CANDIDATE_LIST_SIZE = method(solver, "setCandidateListSize", int.class);
+            SIMULATED_ANNEALING = method(solver, "simulatedAnnealing", double.class, double.class, int.class);
+            SIMULATED_ANNEALING_DELTA = method(solver, "simulatedAnnealingDelta", double.class, double.class, int.class);
+            TABU_SEARCH = method(solver, "tabuSearch", int.class, int.class);
+            TABU_SEARCH_DELTA = method(solver, "tabuSearchDelta", int.class, int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Assignment1() {
+    }
+
+    static Object loadInstance(String path) throws Throwable {
+        return NEW_INSTANCE.invoke(path);
+    }
+
+    static Object newInstanceCache(File directory) throws Throwable {
+        return NEW_CACHE.invoke(directory);
+    }
+
+    static Object loadCached(Object cache, String path) throws Throwable {
+        return CACHE_GET.invoke(cache, path);
+    }
+
+    static Object newSolver(Object instance, long seed) throws Throwable {
+        return NEW_SOLVER.invoke(instance, seed);
+    }
+
+    static void setCandidateListSize(Object solver, int k) throws Throwable {
+        SET_CANDIDATE_LIST_SIZE.invoke(solver, k);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Integer> simulatedAnnealing(Object solver, double initialTemp, double coolingRate, int maxIterations)
+            throws Throwable {
+        return (List<Integer>) SIMULATED_ANNEALING.invoke(solver, initialTemp, coolingRate, maxIterations);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Integer> simulatedAnnealingDelta(Object solver, double initialTemp, double coolingRate, int maxIterations)
+            throws Throwable {
+        return (List<Integer>) SIMULATED_ANNEALING_DELTA.invoke(solver, initialTemp, coolingRate, maxIterations);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Integer> tabuSearch(Object solver, int maxIterations, int tabuTenure) throws Throwable {
+        return (List<Integer>) TABU_SEARCH.invoke(solver, maxIterations, tabuTenure);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Integer> tabuSearchDelta(Object solver, int maxIterations, int tabuTenure) throws Throwable {
+        return (List<Integer>) TABU_SEARCH_DELTA.invoke(solver, maxIterations, tabuTenure);
+    }
+
+    private static MethodHandle constructor(Class<?> type, Class<?>... parameters) throws ReflectiveOperationException {
+        Constructor<?> constructor = type.getDeclaredConstructor(parameters);
+        constructor.setAccessible(true);
+        return MethodHandles.lookup().unreflectConstructor(constructor);
+    }
+
+    private static MethodHandle method(Class<?> type, String name, Class<?>... parameters)
+            throws ReflectiveOperationException {
+        Method method = type.getDeclaredMethod(name, parameters);
+        method.setAccessible(true);
+        return MethodHandles.lookup().unreflect(method);
+    }
+}
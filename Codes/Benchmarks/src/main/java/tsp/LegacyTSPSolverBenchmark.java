@@ -0,0 +1,51 @@
+package tsp;
+
+import benchmarks.Instances;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+
+// The original list-based simulatedAnnealing and tabuSearch, kept to the bundled sizes because the tabu
+// neighborhood is built as O(n^2) tour copies per iteration.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LegacyTSPSolverBenchmark {
+    static final int SA_MOVES = 10_000;
+    static final int TABU_ITERATIONS = 20;
+
+    @Param({"8.txt", "15.txt", "25.txt"})
+    public String instance;
+
+    private Object tsp;
+    private long seed;
+
+    @Setup
+    public void setUp() throws Throwable {
+        tsp = Assignment1.loadInstance(Instances.tspFile(instance));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SA_MOVES)
+    public List<Integer> simulatedAnnealing() throws Throwable {
+        return Assignment1.simulatedAnnealing(Assignment1.newSolver(tsp, seed++), 100, 1.0, SA_MOVES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TABU_ITERATIONS)
+    public List<Integer> tabuSearch() throws Throwable {
+        return Assignment1.tabuSearch(Assignment1.newSolver(tsp, seed++), TABU_ITERATIONS, 10);
+    }
+}
@@ -0,0 +1,47 @@
+package tsp;
+
+import benchmarks.Instances;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TSPInstanceBenchmark {
+    @Param({"8.txt", "12.txt", "15.txt", "20.txt", "25.txt", "synthetic-1000", "synthetic-10000", "synthetic-100000"})
+    public String instance;
+
+    private String path;
+    private File cacheDirectory;
+
+    @Setup
+    public void setUp() throws Throwable {
+        path = Instances.tspFile(instance);
+        cacheDirectory = Files.createTempDirectory("tsp-cache").toFile();
+        Assignment1.loadCached(Assignment1.newInstanceCache(cacheDirectory), path);
+    }
+
+    @Benchmark
+    public Object load() throws Throwable {
+        return Assignment1.loadInstance(path);
+    }
+
+    // A cold start from the binary file an earlier InstanceCache left behind
+    @Benchmark
+    public Object loadCached() throws Throwable {
+        return Assignment1.loadCached(Assignment1.newInstanceCache(cacheDirectory), path);
+    }
+}
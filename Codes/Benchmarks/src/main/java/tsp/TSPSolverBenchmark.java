@@ -0,0 +1,67 @@
+package tsp;
+
+import benchmarks.Instances;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+
+// Move throughput of the delta engines: ops/s are SA moves or tabu iterations per second. The SA runs use a
+// cooling rate of 1, so the temperature never reaches the stopping threshold and every run makes SA_MOVES moves.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TSPSolverBenchmark {
+    static final int SA_MOVES = 100_000;
+    static final int TABU_ITERATIONS = 5;
+
+    @Param({"25.txt", "synthetic-1000", "synthetic-10000"})
+    public String instance;
+
+    private Object tsp;
+    private long seed;
+
+    @Setup
+    public void setUp() throws Throwable {
+        tsp = Assignment1.loadInstance(Instances.tspFile(instance));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SA_MOVES)
+    public List<Integer> simulatedAnnealingDelta() throws Throwable {
+        return Assignment1.simulatedAnnealingDelta(Assignment1.newSolver(tsp, seed++), 100, 1.0, SA_MOVES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SA_MOVES)
+    public List<Integer> simulatedAnnealingDeltaCandidates() throws Throwable {
+        Object solver = Assignment1.newSolver(tsp, seed++);
+        Assignment1.setCandidateListSize(solver, 10);
+        return Assignment1.simulatedAnnealingDelta(solver, 100, 1.0, SA_MOVES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TABU_ITERATIONS)
+    public List<Integer> tabuSearchDelta() throws Throwable {
+        return Assignment1.tabuSearchDelta(Assignment1.newSolver(tsp, seed++), TABU_ITERATIONS, 10);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TABU_ITERATIONS)
+    public List<Integer> tabuSearchDeltaCandidates() throws Throwable {
+        Object solver = Assignment1.newSolver(tsp, seed++);
+        Assignment1.setCandidateListSize(solver, 10);
+        return Assignment1.tabuSearchDelta(solver, TABU_ITERATIONS, 10);
+    }
+}
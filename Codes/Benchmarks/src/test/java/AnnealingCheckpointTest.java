@@ -0,0 +1,48 @@
+import benchmarks.Instances;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Assignment 1 lives in the default package, so its tests do too. Annealing runs with different seeds on one
+// checkpoint path each get the tour of their own seed.
+class AnnealingCheckpointTest {
+    private static final int ITERATIONS = 2000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void otherSeedStartsAfresh() throws IOException {
+        TSPInstance tsp = new TSPInstance(Instances.tspFile("25.txt"));
+        File file = directory.resolve("annealing.bin").toFile();
+
+        TSPSolver first = new TSPSolver(tsp, 1);
+        first.setCheckpoint(file, 0);
+        first.simulatedAnnealingDelta(1000, 0.999, ITERATIONS);
+
+        TSPSolver second = new TSPSolver(tsp, 2);
+        second.setCheckpoint(file, 0);
+        assertEquals(new TSPSolver(tsp, 2).simulatedAnnealingDelta(1000, 0.999, ITERATIONS),
+            second.simulatedAnnealingDelta(1000, 0.999, ITERATIONS));
+    }
+
+    @Test
+    void otherSeedStartsAfreshOnLegacyAnnealing() throws IOException {
+        TSPInstance tsp = new TSPInstance(Instances.tspFile("25.txt"));
+        File file = directory.resolve("annealing.bin").toFile();
+
+        TSPSolver first = new TSPSolver(tsp, 1);
+        first.setCheckpoint(file, 0);
+        first.simulatedAnnealing(1000, 0.999, ITERATIONS);
+
+        TSPSolver second = new TSPSolver(tsp, 2);
+        second.setCheckpoint(file, 0);
+        assertEquals(new TSPSolver(tsp, 2).simulatedAnnealing(1000, 0.999, ITERATIONS),
+            second.simulatedAnnealing(1000, 0.999, ITERATIONS));
+    }
+}
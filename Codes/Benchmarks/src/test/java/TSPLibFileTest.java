@@ -0,0 +1,49 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Files that describe no usable instance are refused when they are read, not on the first distance lookup
+class TSPLibFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void explicitWithoutWeightsIsRefused() {
+        assertRefused("NAME: bad", "DIMENSION: 3", "EDGE_WEIGHT_TYPE : EXPLICIT", "EDGE_WEIGHT_FORMAT: FULL_MATRIX", "EOF");
+    }
+
+    @Test
+    void coordinateTypeWithoutCoordinatesIsRefused() {
+        assertRefused("NAME: bad", "DIMENSION: 3", "EDGE_WEIGHT_TYPE: EUC_2D", "EOF");
+    }
+
+    @Test
+    void dimensionMismatchIsRefused() {
+        assertRefused("NAME: bad", "DIMENSION: 4", "EDGE_WEIGHT_TYPE: EUC_2D", "NODE_COORD_SECTION",
+            "1 0 0", "2 1 1", "3 2 2", "EOF");
+    }
+
+    @Test
+    void wellFormedFileLoads() throws IOException {
+        TSPLibFile file = new TSPLibFile(write("NAME: good", "DIMENSION: 3", "EDGE_WEIGHT_TYPE: EUC_2D",
+            "NODE_COORD_SECTION", "1 0 0", "2 1 1", "3 2 2", "EOF"));
+        assertEquals(3, file.getCityCount());
+    }
+
+    private void assertRefused(String... lines) {
+        assertThrows(IOException.class, () -> new TSPLibFile(write(lines)));
+    }
+
+    private String write(String... lines) throws IOException {
+        Path file = Files.createTempFile(directory, "instance", ".tsp");
+        Files.write(file, String.join("\n", lines).getBytes(StandardCharsets.US_ASCII));
+        return file.toString();
+    }
+}
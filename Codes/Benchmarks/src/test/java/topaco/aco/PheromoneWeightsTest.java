@@ -0,0 +1,55 @@
+package topaco.aco;
+
+import org.junit.jupiter.api.Test;
+import topaco.model.ProblemInstance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Weights stay finite and proportional to tau^alpha however far evaporation has shrunk the stores' scale
+class PheromoneWeightsTest {
+    private static final double ALPHA = 7;
+    private static final double EVAPORATION = 0.5;
+    private static final double DEPOSIT = 10;
+    private static final int ITERATIONS = 1000;
+
+    @Test
+    void denseWeightsStayFiniteAtLargeAlpha() {
+        PheromoneMatrix trails = new PheromoneMatrix(4);
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            trails.evaporate(EVAPORATION);
+            trails.addPheromone(0, 1, DEPOSIT);
+            trails.updateWeights(ALPHA);
+            assertFinite(trails, 0, 1, 2, iteration);
+        }
+        // tau converges to DEPOSIT / EVAPORATION on the deposited edge
+        assertEquals(DEPOSIT / EVAPORATION, trails.get(0, 1), 1e-9);
+    }
+
+    @Test
+    void sparseWeightsStayFiniteAtLargeAlpha() {
+        ProblemInstance instance = new ProblemInstance(1, 10, new double[]{0, 1, 2, 3}, new double[]{0, 0, 0, 0},
+            new int[]{0, 1, 1, 0});
+        SparsePheromoneMatrix trails = new SparsePheromoneMatrix(new CandidateLists(instance, 2, 1));
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            trails.evaporate(EVAPORATION);
+            trails.addPheromone(0, 1, DEPOSIT);
+            trails.updateWeights(ALPHA);
+            // 0-3 is outside both candidate lists and keeps the shared default trail
+            assertFinite(trails, 0, 1, 2, iteration);
+            assertTrue(Double.isFinite(trails.getWeight(0, 3)), "outside weight at iteration " + iteration);
+        }
+        assertEquals(DEPOSIT / EVAPORATION, trails.get(0, 1), 1e-9);
+    }
+
+    // The deposited edge's weight is finite, and its ratio to an evaporating edge's weight is
+    // (tau(i, j) / tau(i, k))^alpha for as long as that ratio is a double at all
+    private static void assertFinite(PheromoneTrails trails, int i, int j, int k, int iteration) {
+        double weight = trails.getWeight(i, j);
+        assertTrue(Double.isFinite(weight) && weight > 0, "weight " + weight + " at iteration " + iteration);
+        double expected = Math.pow(trails.get(i, j) / trails.get(i, k), ALPHA);
+        if (expected < 1e300) {
+            assertEquals(1, weight / trails.getWeight(i, k) / expected, 1e-9, "weight ratio at iteration " + iteration);
+        }
+    }
+}
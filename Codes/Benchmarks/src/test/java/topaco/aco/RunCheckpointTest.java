@@ -0,0 +1,62 @@
+package topaco.aco;
+
+import benchmarks.Instances;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import topaco.model.ProblemInstance;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs with different seeds on one checkpoint path each get the result of their own seed
+class RunCheckpointTest {
+    private static final int ITERATIONS = 40;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void otherSeedStartsAfresh() {
+        ProblemInstance instance = new ProblemInstance(Instances.topFile("p3.4.t.txt"));
+        File file = directory.resolve("run.bin").toFile();
+
+        ACO first = colony(instance, 1);
+        first.setCheckpoint(file, 0);
+        first.runForResult(ITERATIONS);
+
+        ACO second = colony(instance, 2);
+        second.setCheckpoint(file, 0);
+        assertEquals(describe(colony(instance, 2).runForResult(ITERATIONS)), describe(second.runForResult(ITERATIONS)));
+    }
+
+    @Test
+    void finishedRunStartsAfresh() {
+        ProblemInstance instance = new ProblemInstance(Instances.topFile("p3.4.t.txt"));
+        File file = directory.resolve("run.bin").toFile();
+
+        ACO first = colony(instance, 1);
+        first.setCheckpoint(file, 0);
+        String result = describe(first.runForResult(ITERATIONS));
+
+        ACO again = colony(instance, 1);
+        again.setCheckpoint(file, 0);
+        assertEquals(result, describe(again.runForResult(ITERATIONS)));
+    }
+
+    private static ACO colony(ProblemInstance instance, long seed) {
+        return new ACO(instance, new Random(seed), 1, 5, 0.5, 100);
+    }
+
+    private static String describe(List<ACO.ResultPerVehicle> routes) {
+        StringBuilder text = new StringBuilder();
+        for (ACO.ResultPerVehicle vehicle : routes) {
+            text.append(Arrays.toString(vehicle.route)).append(' ').append(vehicle.score).append(';');
+        }
+        return text.toString();
+    }
+}